@@ -208,14 +208,11 @@ const FoodPage: React.FC = () => {
         if (!selectedFoodForIngredients) return;
 
         try {
-            await axios.delete(`http://localhost:8080/food/${selectedFoodForIngredients.id}/ingredients`);
-
-            // Добавляем ингредиенты по одному POST запросу
-            for (const ingredientId of selectedIngredientIds) {
-                await axios.post(
-                    `http://localhost:8080/food/${selectedFoodForIngredients.id}/ingredient/${ingredientId}`
-                );
-            }
+            // Весь состав одним PUT: сервер сам вычисляет, что удалить и что добавить
+            await axios.put(
+                `http://localhost:8080/food/${selectedFoodForIngredients.id}/ingredients`,
+                selectedIngredientIds
+            );
 
             setSnackbarMessage('Ингредиенты обновлены');
             setSnackbarOpen(true);
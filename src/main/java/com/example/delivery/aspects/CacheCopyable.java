@@ -0,0 +1,10 @@
+package com.example.delivery.aspects;
+
+/**
+ * Значение, которое {@link CachingAspect} хранит и отдаёт копией. Копия отвязана от сессии
+ * и не тянет ленивых связей, а каждый вызывающий получает свой экземпляр и может его менять.
+ */
+public interface CacheCopyable<T> {
+
+    T cacheCopy();
+}
@@ -0,0 +1,17 @@
+package com.example.delivery.aspects;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * После успешного вызова метода перечисленные кэши очищаются целиком: запись
+ * меняет и отдельные сущности, и закэшированные списки. Заодно растёт версия каталога.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheInvalidate {
+
+    String[] value(); // Имена бинов CustomCache
+}
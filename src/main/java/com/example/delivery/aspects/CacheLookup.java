@@ -0,0 +1,22 @@
+package com.example.delivery.aspects;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Результат метода берётся из именованного {@code CustomCache}, а при промахе вычисляется
+ * и кладётся туда. Ключ — аргумент метода; у метода без аргументов (список целиком) —
+ * его имя. Значения {@link CacheCopyable} хранятся и отдаются копиями, списки — неизменяемыми.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheLookup {
+
+    String value(); // Имя бина CustomCache
+
+    // Имя сущности для EntityNotFoundException. Если задано, отсутствие id запоминается
+    // как отрицательная запись кэша, и повтор отвечает 404 без запроса в базу
+    String notFound() default "";
+}
@@ -0,0 +1,113 @@
+package com.example.delivery.aspects;
+
+import com.example.delivery.exception.EntityNotFoundException;
+import com.example.delivery.utils.CatalogVersion;
+import com.example.delivery.utils.CustomCache;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Снаружи транзакции (у неё LOWEST_PRECEDENCE): попадание в кэш не открывает её,
+// а сброс идёт уже после коммита
+@Order(0)
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class CachingAspect {
+
+    // Все бины CustomCache по имени бина (categoryCache, ingredientCache, ...)
+    private final Map<String, CustomCache<?, ?>> caches;
+    private final CatalogVersion catalogVersion;
+
+    @Around("@annotation(com.example.delivery.aspects.CacheLookup)")
+    public Object lookup(ProceedingJoinPoint joinPoint) {
+        CacheLookup lookup = annotation(joinPoint, CacheLookup.class);
+        CustomCache<Object, Object> cache = cache(lookup.value());
+        boolean negative = !lookup.notFound().isEmpty();
+        // Одновременные промахи по одному ключу ждут один вызов метода
+        Object value = cache.get(key(joinPoint), key -> {
+            try {
+                // В кэше лежат отвязанные копии сущностей, и каждый вызывающий получает свою
+                return copy(proceed(joinPoint));
+            } catch (EntityNotFoundException e) {
+                if (!negative) {
+                    throw e;
+                }
+                // null кэш запоминает как отсутствующий ключ на negative-max-age
+                return null;
+            }
+        });
+        if (value == null && negative) {
+            throw new EntityNotFoundException(lookup.notFound(), (Long) key(joinPoint));
+        }
+        return copy(value);
+    }
+
+    @AfterReturning("@annotation(com.example.delivery.aspects.CacheInvalidate)")
+    public void invalidate(JoinPoint joinPoint) {
+        for (String name : annotation(joinPoint, CacheInvalidate.class).value()) {
+            cache(name).clear();
+        }
+        // Закэшированные результаты поиска тоже посчитаны по старым данным
+        catalogVersion.increment();
+    }
+
+    @SuppressWarnings("unchecked")
+    private CustomCache<Object, Object> cache(String name) {
+        CustomCache<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            throw new IllegalStateException("No CustomCache bean named " + name);
+        }
+        return (CustomCache<Object, Object>) cache;
+    }
+
+    private static <A extends Annotation> A annotation(JoinPoint joinPoint, Class<A> type) {
+        // Аннотация стоит на методе реализации, а сигнатура может указывать на интерфейс
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Method targetMethod = AopUtils.getMostSpecificMethod(method, joinPoint.getTarget().getClass());
+        return AnnotationUtils.findAnnotation(targetMethod, type);
+    }
+
+    private static Object key(ProceedingJoinPoint joinPoint) {
+        Object[] args = joinPoint.getArgs();
+        if (args.length == 0) {
+            return joinPoint.getSignature().getName();
+        }
+        return args.length == 1 ? args[0] : Arrays.asList(args);
+    }
+
+    // Список отдаём неизменяемым, чтобы вызывающий не испортил общую копию
+    private static Object copy(Object value) {
+        if (value instanceof CacheCopyable<?> copyable) {
+            return copyable.cacheCopy();
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(CachingAspect::copy).toList();
+        }
+        return value;
+    }
+
+    private static Object proceed(ProceedingJoinPoint joinPoint) {
+        try {
+            return joinPoint.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
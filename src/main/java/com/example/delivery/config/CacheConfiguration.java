@@ -1,7 +1,10 @@
 package com.example.delivery.config;
 
-import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.utils.CatalogVersion;
 import com.example.delivery.utils.CustomCache;
+import com.example.delivery.utils.EvictionPolicy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,7 +12,62 @@ import org.springframework.context.annotation.Configuration;
 public class CacheConfiguration {
 
     @Bean
-    public CustomCache<Long, Food> foodCache() {
-        return new CustomCache<>();
+    public CustomCache<Long, FoodSnapshot> foodCache(
+            @Value("${cache.food.max-weight-bytes:8388608}") long maxWeightInBytes,
+            @Value("${cache.food.max-age-millis:60000}") long maxAgeInMillis,
+            @Value("${cache.food.refresh-after-write-millis:30000}") long refreshAfterWriteMillis,
+            @Value("${cache.food.negative-max-age-millis:5000}") long negativeMaxAgeInMillis,
+            @Value("${cache.food.eviction-policy:TINY_LFU}") EvictionPolicy evictionPolicy) {
+        return CustomCache.<Long, FoodSnapshot>builder()
+                .maxWeight(maxWeightInBytes)
+                .weigher((id, food) -> food.estimatedSizeInBytes())
+                .maxAgeInMillis(maxAgeInMillis)
+                .refreshAfterWriteMillis(refreshAfterWriteMillis)
+                .negativeMaxAgeInMillis(negativeMaxAgeInMillis)
+                .evictionPolicy(evictionPolicy)
+                .recordLoadCounts()
+                .build();
+    }
+
+    // Справочники меняются редко: записи живут долго и сбрасываются целиком при записи
+    @Bean
+    public CustomCache<Object, Object> categoryCache(
+            @Value("${cache.category.max-size:1000}") int maxSize,
+            @Value("${cache.category.max-age-millis:600000}") long maxAgeInMillis,
+            @Value("${cache.category.negative-max-age-millis:5000}") long negativeMaxAgeInMillis) {
+        return CustomCache.<Object, Object>builder()
+                .maxSize(maxSize)
+                .maxAgeInMillis(maxAgeInMillis)
+                .negativeMaxAgeInMillis(negativeMaxAgeInMillis)
+                .build();
+    }
+
+    @Bean
+    public CustomCache<Object, Object> ingredientCache(
+            @Value("${cache.ingredient.max-size:1000}") int maxSize,
+            @Value("${cache.ingredient.max-age-millis:600000}") long maxAgeInMillis,
+            @Value("${cache.ingredient.negative-max-age-millis:5000}") long negativeMaxAgeInMillis) {
+        return CustomCache.<Object, Object>builder()
+                .maxSize(maxSize)
+                .maxAgeInMillis(maxAgeInMillis)
+                .negativeMaxAgeInMillis(negativeMaxAgeInMillis)
+                .build();
+    }
+
+    @Bean
+    public CatalogVersion catalogVersion() {
+        return new CatalogVersion();
+    }
+
+    // Запрос поиска -> id найденных блюд; версия каталога входит в ключ
+    @Bean
+    public CustomCache<String, long[]> foodSearchCache(
+            @Value("${cache.search.max-size:1000}") int maxSize,
+            @Value("${cache.search.max-age-millis:600000}") long maxAgeInMillis) {
+        return CustomCache.<String, long[]>builder()
+                .maxSize(maxSize)
+                .maxAgeInMillis(maxAgeInMillis)
+                .evictionPolicy(EvictionPolicy.TINY_LFU)
+                .build();
     }
 }
@@ -0,0 +1,33 @@
+package com.example.delivery.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сдвигает food_seq за максимальный id блюда. Блюда, созданные до перехода с IDENTITY
+ * на последовательность, уже заняли id с 1, а ddl-auto создаёт food_seq с начала.
+ * Выполняется после обновления схемы, но до того, как сервер начнёт принимать запросы.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DependsOn("entityManagerFactory")
+public class FoodSequenceInitializer implements InitializingBean {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        // Только вперёд: GREATEST с last_value не даёт откатить уже выданные пулы
+        Long value = jdbcTemplate.queryForObject("""
+                SELECT setval('food_seq', GREATEST(
+                    (SELECT COALESCE(MAX(id), 0) FROM food),
+                    (SELECT last_value FROM food_seq)))
+                """, Long.class);
+        log.info("food_seq is at {}", value);
+    }
+}
@@ -23,6 +23,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .addPathPatterns("/**")
                 .excludePathPatterns(
                         "/visits/**",
+                        "/cache/**",
                         "/error",
                         "/static/**",
                         "/webjars/**",
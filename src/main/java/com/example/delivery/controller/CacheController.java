@@ -0,0 +1,60 @@
+package com.example.delivery.controller;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.example.delivery.exception.InvalidEntityException;
+import com.example.delivery.utils.CacheStats;
+import com.example.delivery.utils.CustomCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/cache")
+@RequiredArgsConstructor
+public class CacheController {
+    private static final int MAX_LOADS_LIMIT = 1000;
+
+    // Все бины CustomCache по имени бина (foodCache, ...)
+    private final Map<String, CustomCache<?, ?>> caches;
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, CacheStats>> getAllStats() {
+        Map<String, CacheStats> stats = new TreeMap<>();
+        caches.forEach((name, cache) -> stats.put(name, cache.stats()));
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/{name}/stats")
+    public ResponseEntity<CacheStats> getStats(@PathVariable String name) {
+        CustomCache<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(cache.stats());
+    }
+
+    @GetMapping("/{name}/loads")
+    public ResponseEntity<Map<String, Long>> getLoadCounts(
+            @PathVariable String name, @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_LOADS_LIMIT) {
+            throw new InvalidEntityException("Limit must be between 1 and " + MAX_LOADS_LIMIT);
+        }
+        CustomCache<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Ключи, которые чаще всего грузились из базы, — первыми
+        Map<String, Long> counts = new HashMap<>();
+        cache.loadCounts().forEach((key, count) -> counts.put(String.valueOf(key), count));
+        Map<String, Long> top = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return ResponseEntity.ok(top);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.delivery.controller;
 
 import com.example.delivery.model.Category;
+import com.example.delivery.model.KeysetPage;
 import com.example.delivery.service.CategoryService;
+import com.example.delivery.utils.JsonArrayStreamer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,6 +11,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,7 +20,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
@@ -25,10 +30,13 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Category Controller", description = "API для управления категориями блюд")
 public class CategoryController {
     private final CategoryService categoryService;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService,
+            JsonArrayStreamer jsonArrayStreamer) {
         this.categoryService = categoryService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
     }
 
     @Operation(summary = "Получить все категории",
@@ -42,6 +50,30 @@ public class CategoryController {
         return categoryService.getAllCategories();
     }
 
+    @Operation(summary = "Страница категорий по курсору",
+            description = "Возвращает до limit категорий по возрастанию ID после after. "
+                    + "next — курсор следующей страницы, null на последней.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Страница возвращена"),
+        @ApiResponse(responseCode = "400", description = "Неверный limit")
+    })
+    @GetMapping("/page")
+    public KeysetPage<Category> getCategoryPage(
+            @Parameter(description = "ID последнего категории предыдущей страницы")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Размер страницы (1–1000)") @RequestParam(defaultValue = "100") int limit) {
+        return categoryService.getCategoryPage(after, limit);
+    }
+
+    @Operation(summary = "Выгрузка всех категорий потоком",
+            description = "Все записи JSON-массивом по возрастанию ID. Ответ пишется по мере "
+                    + "чтения из базы, память сервера не зависит от размера выгрузки.")
+    @ApiResponse(responseCode = "200", description = "Выгрузка идёт")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllCategories() {
+        return jsonArrayStreamer.stream(categoryService::streamAllCategories);
+    }
+
     @Operation(summary = "Получить категорию по ID",
             description = "Возвращает информацию о категории по заданному ID.")
     @ApiResponses(value = {
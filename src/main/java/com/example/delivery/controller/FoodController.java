@@ -1,14 +1,27 @@
 package com.example.delivery.controller;
 
 import com.example.delivery.model.Food;
+import com.example.delivery.model.KeysetPage;
+import com.example.delivery.search.FacetPage;
+import com.example.delivery.search.FacetQuery;
+import com.example.delivery.search.Suggestion;
+import com.example.delivery.service.FoodImportService;
+import com.example.delivery.service.FoodSearchService;
 import com.example.delivery.service.FoodService;
+import com.example.delivery.utils.JsonArrayStreamer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,6 +32,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/food")
@@ -26,10 +40,17 @@ import org.springframework.web.bind.annotation.RestController;
 public class FoodController {
 
     private final FoodService foodService;
+    private final FoodSearchService foodSearchService;
+    private final FoodImportService foodImportService;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @Autowired
-    public FoodController(FoodService foodService) {
+    public FoodController(FoodService foodService, FoodSearchService foodSearchService,
+            FoodImportService foodImportService, JsonArrayStreamer jsonArrayStreamer) {
         this.foodService = foodService;
+        this.foodSearchService = foodSearchService;
+        this.foodImportService = foodImportService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
     }
 
     @PostMapping("/bulk")
@@ -40,6 +61,17 @@ public class FoodController {
         return ResponseEntity.ok(savedFoods);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Потоковый импорт блюд",
+            description = "Одно блюдо на строку NDJSON. Сохраняет пачками и сразу отвечает строкой "
+                    + "{line, id} или {line, error} на каждое блюдо; плохие строки не откатывают хорошие.")
+    @ApiResponse(responseCode = "200", description = "Итоги по строкам")
+    public void importFoodsNdjson(InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        foodImportService.importNdjson(body, response.getOutputStream());
+    }
+
     @Operation(summary = "Получить все блюда",
             description = "Возвращает список всех доступных блюд.")
     @ApiResponses(value = {
@@ -51,6 +83,30 @@ public class FoodController {
         return foodService.getAllFood();
     }
 
+    @Operation(summary = "Страница блюд по курсору",
+            description = "Возвращает до limit блюд по возрастанию ID после after. "
+                    + "next — курсор следующей страницы, null на последней.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Страница возвращена"),
+        @ApiResponse(responseCode = "400", description = "Неверный limit")
+    })
+    @GetMapping("/page")
+    public KeysetPage<Food> getFoodPage(
+            @Parameter(description = "ID последнего блюда предыдущей страницы")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Размер страницы (1–1000)") @RequestParam(defaultValue = "100") int limit) {
+        return foodService.getFoodPage(after, limit);
+    }
+
+    @Operation(summary = "Выгрузка всех блюд потоком",
+            description = "Все записи JSON-массивом по возрастанию ID. Ответ пишется по мере "
+                    + "чтения из базы, память сервера не зависит от размера выгрузки.")
+    @ApiResponse(responseCode = "200", description = "Выгрузка идёт")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllFood() {
+        return jsonArrayStreamer.stream(foodService::streamAllFood);
+    }
+
     @Operation(summary = "Получить блюдо по ID",
             description = "Возвращает информацию о блюде по заданному ID.")
     @ApiResponses(value = {
@@ -89,6 +145,36 @@ public class FoodController {
         return ResponseEntity.ok(updatedFood);
     }
 
+    @Operation(summary = "Убрать ингредиент из блюда",
+            description = "Убирает один ингредиент из состава блюда, остальной состав не меняется.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Ингредиент успешно убран"),
+        @ApiResponse(responseCode = "404", description = "Блюдо не найдено или в нём нет такого ингредиента")
+    })
+    @DeleteMapping("/{foodId}/ingredient/{ingredientId}")
+    public ResponseEntity<Food> removeIngredientFromFood(
+            @Parameter(description = "ID блюда") @PathVariable Long foodId,
+            @Parameter(description = "ID ингредиента") @PathVariable Long ingredientId) {
+        Food updatedFood = foodService.removeIngredientFromFood(foodId, ingredientId);
+        return ResponseEntity.ok(updatedFood);
+    }
+
+    @Operation(summary = "Заменить состав блюда",
+            description = "Принимает набор ID ингредиентов и за один запрос приводит состав блюда к нему: "
+                    + "лишние связи удаляются, недостающие добавляются.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Состав успешно обновлён"),
+        @ApiResponse(responseCode = "400", description = "В наборе есть пустой ID"),
+        @ApiResponse(responseCode = "404", description = "Блюдо или ингредиент не найден")
+    })
+    @PutMapping("/{foodId}/ingredients")
+    public ResponseEntity<Food> replaceIngredients(
+            @Parameter(description = "ID блюда") @PathVariable Long foodId,
+            @RequestBody Set<Long> ingredientIds) {
+        Food updatedFood = foodService.replaceIngredients(foodId, ingredientIds);
+        return ResponseEntity.ok(updatedFood);
+    }
+
     @Operation(summary = "Обновить блюдо",
             description = "Обновляет информацию о блюде по заданному ID.")
     @ApiResponses(value = {
@@ -116,14 +202,22 @@ public class FoodController {
     }
 
     @Operation(summary = "Поиск блюда по имени",
-            description = "Ищет блюда по имени, используя поисковый запрос.")
+            description = "Ищет блюда по имени, используя поисковый запрос. С fuzzy=true допускает "
+                    + "опечатки в словах запроса и сортирует по близости, затем по популярности.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Результаты поиска найдены"),
         @ApiResponse(responseCode = "400", description = "Неверный запрос")
     })
     @GetMapping("/search")
     public List<Food> searchFoodByName(@Parameter(
-            description = "Поисковый запрос для поиска блюд") @RequestParam String query) {
+            description = "Поисковый запрос для поиска блюд") @RequestParam String query,
+            @Parameter(description = "Искать с опечатками")
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @Parameter(description = "Сколько блюд вернуть при fuzzy=true (1–100)")
+            @RequestParam(defaultValue = "20") int limit) {
+        if (fuzzy) {
+            return foodSearchService.searchFoodByNameFuzzy(query, limit);
+        }
         return foodService.searchFoodByName(query);
     }
 
@@ -140,6 +234,74 @@ public class FoodController {
         return foodService.searchFoodByCategoryName(category);
     }
 
+    @Operation(summary = "Фильтр блюд по составу",
+            description = "Блюда, в которых есть все ингредиенты include и нет ни одного из exclude, "
+                    + "по возрастанию ID. Без include фильтруется весь каталог.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Блюда найдены"),
+        @ApiResponse(responseCode = "400", description = "Неверный limit")
+    })
+    @GetMapping("/filter")
+    public List<Food> filterFoodsByIngredients(
+            @Parameter(description = "ID ингредиентов, которые должны быть в блюде")
+            @RequestParam(defaultValue = "") List<Long> include,
+            @Parameter(description = "ID ингредиентов, которых не должно быть в блюде")
+            @RequestParam(defaultValue = "") List<Long> exclude,
+            @Parameter(description = "Сколько блюд вернуть (1–1000)")
+            @RequestParam(defaultValue = "100") int limit) {
+        return foodSearchService.filterFoodsByIngredients(include, exclude, limit);
+    }
+
+    @Operation(summary = "Витрина с фильтрами",
+            description = "Фильтр по категории, цене и составу с сортировкой и постраничной выдачей.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Страница блюд"),
+        @ApiResponse(responseCode = "400", description = "Неверные параметры страницы или цены")
+    })
+    @GetMapping("/browse")
+    public FacetPage browseFoods(
+            @Parameter(description = "ID категории") @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Минимальная цена") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Максимальная цена") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "ID ингредиентов, которые должны быть в блюде")
+            @RequestParam(defaultValue = "") List<Long> include,
+            @Parameter(description = "ID ингредиентов, которых не должно быть в блюде")
+            @RequestParam(defaultValue = "") List<Long> exclude,
+            @Parameter(description = "Порядок: ID, PRICE_ASC или PRICE_DESC")
+            @RequestParam(defaultValue = "ID") FacetQuery.Sort sort,
+            @Parameter(description = "Номер страницы с нуля") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Размер страницы (1–100)") @RequestParam(defaultValue = "20") int size) {
+        return foodSearchService.browseFoods(categoryId, minPrice, maxPrice, include, exclude, sort, page, size);
+    }
+
+    @Operation(summary = "Похожие блюда",
+            description = "Блюда с похожим составом (MinHash LSH), самые похожие первыми.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Похожие блюда найдены"),
+        @ApiResponse(responseCode = "400", description = "Неверный k"),
+        @ApiResponse(responseCode = "404", description = "Блюдо не найдено")
+    })
+    @GetMapping("/{id}/similar")
+    public List<Food> getSimilarFoods(
+            @Parameter(description = "ID блюда") @PathVariable Long id,
+            @Parameter(description = "Сколько блюд вернуть (1–50)") @RequestParam(defaultValue = "10") int k) {
+        return foodSearchService.getSimilarFoods(id, k);
+    }
+
+    @Operation(summary = "Подсказки по префиксу",
+            description = "Самые популярные блюда и категории, название которых начинается с префикса.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Подсказки найдены"),
+        @ApiResponse(responseCode = "400", description = "Неверный limit")
+    })
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(
+            @Parameter(description = "Начало названия") @RequestParam String prefix,
+            @Parameter(description = "Сколько подсказок вернуть (1–20)")
+            @RequestParam(defaultValue = "10") int limit) {
+        return foodSearchService.suggest(prefix, limit);
+    }
+
     @DeleteMapping("/{foodId}/ingredients")
     public ResponseEntity<Void> deleteAllIngredientsFromFood(@PathVariable Long foodId) {
         foodService.clearIngredientsFromFood(foodId);
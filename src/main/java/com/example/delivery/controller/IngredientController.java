@@ -1,7 +1,9 @@
 package com.example.delivery.controller;
 
 import com.example.delivery.model.Ingredient;
+import com.example.delivery.model.KeysetPage;
 import com.example.delivery.service.IngredientService;
+import com.example.delivery.utils.JsonArrayStreamer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,6 +11,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,16 +20,21 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/ingredient")
 @Tag(name = "Ingredient Controller", description = "API для управления ингредиентами блюд")
 public class IngredientController {
     private final IngredientService ingredientService;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
-    public IngredientController(IngredientService ingredientService) {
+    public IngredientController(IngredientService ingredientService,
+            JsonArrayStreamer jsonArrayStreamer) {
         this.ingredientService = ingredientService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
     }
 
     @Operation(summary = "Получить все ингредиенты",
@@ -40,6 +48,30 @@ public class IngredientController {
         return ingredientService.getAllIngredients();
     }
 
+    @Operation(summary = "Страница ингредиентов по курсору",
+            description = "Возвращает до limit ингредиентов по возрастанию ID после after. "
+                    + "next — курсор следующей страницы, null на последней.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница возвращена"),
+            @ApiResponse(responseCode = "400", description = "Неверный limit")
+    })
+    @GetMapping("/page")
+    public KeysetPage<Ingredient> getIngredientPage(
+            @Parameter(description = "ID последнего ингредиента предыдущей страницы")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Размер страницы (1–1000)") @RequestParam(defaultValue = "100") int limit) {
+        return ingredientService.getIngredientPage(after, limit);
+    }
+
+    @Operation(summary = "Выгрузка всех ингредиентов потоком",
+            description = "Все записи JSON-массивом по возрастанию ID. Ответ пишется по мере "
+                    + "чтения из базы, память сервера не зависит от размера выгрузки.")
+    @ApiResponse(responseCode = "200", description = "Выгрузка идёт")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllIngredients() {
+        return jsonArrayStreamer.stream(ingredientService::streamAllIngredients);
+    }
+
     @Operation(summary = "Получить ингредиент по ID",
             description = "Возвращает информацию об ингредиенте по заданному ID.")
     @ApiResponses(value = {
@@ -1,8 +1,18 @@
 package com.example.delivery.exception;
 
 public class EntityNotFoundException extends RuntimeException {
+    private final String entityName;
+    private final Long id;
+
+    // Без стектрейса: 404 на несуществующий id — штатная ситуация, а не ошибка в коде
     public EntityNotFoundException(String entityName, Long id) {
-        super(String.format("%s with id %d not found", entityName, id));
+        super(null, null, false, false);
+        this.entityName = entityName;
+        this.id = id;
     }
-}
 
+    @Override
+    public String getMessage() {
+        return String.format("%s with id %d not found", entityName, id);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.delivery.model;
 
+import com.example.delivery.aspects.CacheCopyable;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
@@ -21,7 +22,7 @@ import lombok.ToString;
 @AllArgsConstructor
 @Builder
 @ToString(exclude = "foods")
-public class Category {
+public class Category implements CacheCopyable<Category> {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,4 +33,10 @@ public class Category {
     @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Food> foods;
+
+    // Для кэша справочников: без ленивой коллекции foods, которая пережила бы свою сессию
+    @Override
+    public Category cacheCopy() {
+        return new Category(id, name, null);
+    }
 }
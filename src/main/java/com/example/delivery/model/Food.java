@@ -8,8 +8,10 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.SequenceGenerator;
 import java.math.BigDecimal;
-import java.util.List;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -24,8 +26,10 @@ import lombok.ToString;
 @Builder
 public class Food {
 
+    // Последовательность с пулом: IDENTITY заставляет Hibernate вставлять по одной строке без батчей
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "food_seq")
+    @SequenceGenerator(name = "food_seq", sequenceName = "food_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -36,12 +40,15 @@ public class Food {
     @JoinColumn(name = "category_id", nullable = false) // Внешний ключ
     private Category category;
 
+    // Set, а не List: у мешка без индекса Hibernate при любом изменении удаляет все строки
+    // food_ingredient блюда и вставляет заново, у множества — только разницу
     @ManyToMany
+    @OrderBy("id")
     @JoinTable(
             name = "food_ingredient",
             joinColumns = @JoinColumn(name = "food_id"),
             inverseJoinColumns = @JoinColumn(name = "ingredient_id")
     )
-    private List<Ingredient> ingredients;
+    private Set<Ingredient> ingredients;
 
 }
@@ -0,0 +1,18 @@
+package com.example.delivery.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Итог одной строки NDJSON-импорта: id созданного блюда или причина отказа.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FoodImportResult(long line, Long id, String error) {
+
+    public static FoodImportResult created(long line, long id) {
+        return new FoodImportResult(line, id, null);
+    }
+
+    public static FoodImportResult failed(long line, String error) {
+        return new FoodImportResult(line, null, error);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.delivery.model;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Неизменяемый снимок блюда для foodCache. Собирается один раз при загрузке и не держит
+ * ссылок на сессию Hibernate, поэтому его можно без блокировок раздавать всем потокам.
+ * Ингредиенты хранятся парой параллельных массивов вместо списка сущностей.
+ */
+public final class FoodSnapshot {
+
+    private final Long id;
+    private final String name;
+    private final BigDecimal price;
+    private final Long categoryId;
+    private final String categoryName;
+    private final long[] ingredientIds;
+    private final String[] ingredientNames;
+
+    private FoodSnapshot(Long id, String name, BigDecimal price, Long categoryId,
+                         String categoryName, long[] ingredientIds, String[] ingredientNames) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.ingredientIds = ingredientIds;
+        this.ingredientNames = ingredientNames;
+    }
+
+    public static FoodSnapshot of(Food food) {
+        Category category = food.getCategory();
+        Collection<Ingredient> ingredients = food.getIngredients() == null ? List.of() : food.getIngredients();
+        long[] ingredientIds = new long[ingredients.size()];
+        String[] ingredientNames = new String[ingredients.size()];
+        int i = 0;
+        for (Ingredient ingredient : ingredients) {
+            ingredientIds[i] = ingredient.getId();
+            ingredientNames[i++] = ingredient.getName();
+        }
+        return new FoodSnapshot(
+                food.getId(),
+                food.getName(),
+                food.getPrice(),
+                category == null ? null : category.getId(),
+                category == null ? null : category.getName(),
+                ingredientIds,
+                ingredientNames);
+    }
+
+    /**
+     * Новый отсоединённый Food для ответа API. Каждый вызов отдаёт свою копию,
+     * так что изменения вызывающего кода не попадают в кэш.
+     */
+    public Food toFood() {
+        Set<Ingredient> ingredients = new LinkedHashSet<>(ingredientIds.length);
+        for (int i = 0; i < ingredientIds.length; i++) {
+            ingredients.add(new Ingredient(ingredientIds[i], ingredientNames[i], null));
+        }
+        return Food.builder()
+                .id(id)
+                .name(name)
+                .price(price)
+                .category(categoryId == null ? null : new Category(categoryId, categoryName, null))
+                .ingredients(ingredients)
+                .build();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public int getIngredientCount() {
+        return ingredientIds.length;
+    }
+
+    public long getIngredientId(int index) {
+        return ingredientIds[index];
+    }
+
+    public String getIngredientName(int index) {
+        return ingredientNames[index];
+    }
+
+    /**
+     * Примерный размер записи в куче (64-bit JVM, compressed oops), включая узел кэша
+     * и ключ. Нужен weigher'у foodCache, чтобы ограничить кэш бюджетом памяти.
+     */
+    public int estimatedSizeInBytes() {
+        int size = 48 // узел кэша + запись ConcurrentHashMap
+                + 16 // ключ Long
+                + 40 // сам снимок
+                + 16 + stringSize(name)
+                + (price == null ? 0 : 72) // BigDecimal вместе с BigInteger
+                + (categoryId == null ? 0 : 16 + stringSize(categoryName))
+                + 16 + 8 * ingredientIds.length
+                + 16 + 4 * ingredientNames.length;
+        for (String ingredientName : ingredientNames) {
+            size += stringSize(ingredientName);
+        }
+        return size;
+    }
+
+    private static int stringSize(String value) {
+        // Заголовок String + byte[]; латиница — байт на символ, кириллица — два
+        return value == null ? 0 : 40 + 2 * value.length();
+    }
+
+    @Override
+    public String toString() {
+        return "FoodSnapshot(id=" + id + ", name=" + name + ")";
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.delivery.model;
 
+import com.example.delivery.aspects.CacheCopyable;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -20,7 +21,7 @@ import lombok.ToString;
 @AllArgsConstructor
 @Builder
 @ToString(exclude = "foods")
-public class Ingredient {
+public class Ingredient implements CacheCopyable<Ingredient> {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,5 +32,24 @@ public class Ingredient {
     @JsonIgnore
     private List<Food> foods;
 
-}
+    // Равенство по id: Ingredient лежит в Set у Food, а сгенерированный @Data equals
+    // тянул бы ленивую коллекцию foods. Хеш постоянный, чтобы не меняться при выдаче id
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Ingredient other && id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Ingredient.class.hashCode();
+    }
 
+    // Для кэша справочников: без ленивой коллекции foods, которая пережила бы свою сессию
+    @Override
+    public Ingredient cacheCopy() {
+        return new Ingredient(id, name, null);
+    }
+}
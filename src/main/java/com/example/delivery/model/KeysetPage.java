@@ -0,0 +1,19 @@
+package com.example.delivery.model;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница по возрастанию id и курсор на следующую: id последней записи или {@code null},
+ * если дальше ничего нет. Следующая страница — {@code ?after=next}, без OFFSET.
+ */
+public record KeysetPage<T>(List<T> content, Long next) {
+
+    public static final int MAX_LIMIT = 1000;
+
+    // Неполная страница — последняя, курсор не нужен
+    public static <T> KeysetPage<T> of(List<T> content, int limit, Function<T, Long> id) {
+        Long next = content.size() < limit ? null : id.apply(content.get(content.size() - 1));
+        return new KeysetPage<>(content, next);
+    }
+}
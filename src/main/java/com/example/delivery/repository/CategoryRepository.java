@@ -1,9 +1,22 @@
 package com.example.delivery.repository;
 
 import com.example.delivery.model.Category;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    List<Category> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    // Курсор на сервере; читать внутри транзакции
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM Category c ORDER BY c.id")
+    Stream<Category> streamAll();
 }
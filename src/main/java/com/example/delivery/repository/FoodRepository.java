@@ -1,25 +1,69 @@
 package com.example.delivery.repository;
 
 import com.example.delivery.model.Food;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 
 public interface FoodRepository extends JpaRepository<Food, Long> {
+    // Списки блюд уходят в JSON целиком, поэтому категорию и ингредиенты берём тем же запросом
+    @EntityGraph(attributePaths = {"category", "ingredients"})
     @Query("SELECT f FROM Food f WHERE LOWER(f.name) LIKE LOWER(CONCAT('%', :name, '%'))")
     List<Food> findByNameContainingIgnoreCase(@Param("name") String name);
 
     Optional<Food> findByNameIgnoreCase(String name);
 
+    // Проверка имён для импорта одним запросом; names уже в нижнем регистре
+    @Query("SELECT f.name FROM Food f WHERE LOWER(f.name) IN :names")
+    List<String> findExistingNamesIgnoreCase(@Param("names") Collection<String> names);
+
+    // Блюдо вместе с категорией и ингредиентами одним запросом — для снимков в кэше
+    @EntityGraph(attributePaths = {"category", "ingredients"})
+    Optional<Food> findWithDetailsById(Long id);
+
+    // Прогрев кэша: все блюда из снимка с деталями одним запросом, без N+1
+    @Override
+    @EntityGraph(attributePaths = {"category", "ingredients"})
+    List<Food> findAllById(Iterable<Long> ids);
+
+    // Весь каталог с деталями — для GET /food и построения индексов в памяти на старте
+    @EntityGraph(attributePaths = {"category", "ingredients"})
+    @Query("SELECT f FROM Food f")
+    List<Food> findAllWithDetails();
+
+    @EntityGraph(attributePaths = {"category", "ingredients"})
+    List<Food> findAllWithDetailsByCategoryId(Long categoryId);
+
+    // Только id блюд категории: для удаления из индексов сами блюда не нужны
+    @Query("SELECT f.id FROM Food f WHERE f.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+    // Только id: сами блюда берутся из foodCache, промахи — одним findAllById
     @Query(value = """
-    SELECT f.*
+    SELECT f.id
     FROM food f
     JOIN category c ON f.category_id = c.id
     WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :categoryName, '%'))
         """, nativeQuery = true)
-    List<Food> findByCategoryNameContainingIgnoreCase(@Param("categoryName") String categoryName);
-}
+    List<Long> findIdsByCategoryNameContainingIgnoreCase(@Param("categoryName") String categoryName);
 
+    // Id страницы после курсора: LIMIT вместе с fetch join коллекции Hibernate делает в памяти
+    @Query("SELECT f.id FROM Food f WHERE f.id > :after ORDER BY f.id")
+    List<Long> findIdsAfter(@Param("after") long after, Limit limit);
+
+    // Выгрузка каталога курсором на сервере; читать внутри транзакции и отцеплять прочитанное
+    @EntityGraph(attributePaths = {"category", "ingredients"})
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT f FROM Food f ORDER BY f.id")
+    Stream<Food> streamAllWithDetails();
+}
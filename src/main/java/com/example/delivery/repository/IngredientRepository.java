@@ -1,8 +1,37 @@
 package com.example.delivery.repository;
 
 import com.example.delivery.model.Ingredient;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
-}
+    List<Ingredient> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    // Курсор на сервере; читать внутри транзакции
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT i FROM Ingredient i ORDER BY i.id")
+    Stream<Ingredient> streamAll();
+
+    // Блюда с ингредиентом прямо из таблицы связей, сами блюда не загружаются
+    @Query(value = "SELECT food_id FROM food_ingredient WHERE ingredient_id = :ingredientId", nativeQuery = true)
+    List<Long> findFoodIdsByIngredientId(@Param("ingredientId") Long ingredientId);
 
+    // Один DELETE на все связи вместо пересохранения состава каждого блюда
+    @Modifying
+    @Query(value = "DELETE FROM food_ingredient WHERE ingredient_id = :ingredientId", nativeQuery = true)
+    int deleteFoodLinksByIngredientId(@Param("ingredientId") Long ingredientId);
+
+    // Без SELECT, который делает deleteById, и без повторной чистки связей, которую Hibernate
+    // добавляет к JPQL-удалению; 0 — такого ингредиента нет
+    @Modifying
+    @Query(value = "DELETE FROM ingredient WHERE id = :id", nativeQuery = true)
+    int deleteRowById(@Param("id") Long id);
+}
@@ -0,0 +1,319 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.FoodSnapshot;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Колоночная модель каталога для фильтров витрины. Каждое блюдо — строка с плотным номером,
+ * столбцы — примитивные массивы: цена в копейках, порядковый номер категории, id.
+ * Состав хранится сжатыми битовыми картами строк по ингредиентам. Запрос проходит по
+ * столбцам и держит первые {@code offset + limit} строк в куче на int[], так что на строку
+ * не создаётся ни одного объекта.
+ */
+@Component
+public class FacetIndex implements FoodIndex {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    // Куча запроса держит offset + limit строк, поэтому глубина выдачи ограничена
+    public static final int MAX_OFFSET = 10_000;
+    // С запасом ниже переполнения long при переводе в копейки
+    public static final BigDecimal MAX_PRICE = new BigDecimal("1000000000");
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final int NO_CATEGORY = -1;
+    private static final int ANY_CATEGORY = -2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Всё ниже меняется только под write-блокировкой
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<Long, Integer> categoryOrdinals = new HashMap<>();
+    private final Map<Long, RoaringBitmap> rowsByIngredient = new HashMap<>();
+    // Свободная строка — ids[row] == 0: id из food_seq начинаются с 1
+    private long[] ids = new long[16];
+    private long[] priceCents = new long[16];
+    private int[] categories = new int[16];
+    private long[][] ingredients = new long[16][];
+    private int[] freeRows = new int[16];
+    private int freeCount;
+    private int nextRow;
+
+    /**
+     * Id блюд окна выдачи и общее число подошедших блюд.
+     */
+    public record Result(long[] ids, int total) {
+    }
+
+    @Override
+    public void rebuild(Collection<FoodSnapshot> foods) {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            categoryOrdinals.clear();
+            rowsByIngredient.clear();
+            int capacity = Math.max(16, foods.size());
+            ids = new long[capacity];
+            priceCents = new long[capacity];
+            categories = new int[capacity];
+            ingredients = new long[capacity][];
+            freeCount = 0;
+            nextRow = 0;
+            for (FoodSnapshot food : foods) {
+                add(food);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(FoodSnapshot food) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(food.getId());
+            add(food);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long foodId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(foodId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeIngredient(long ingredientId, long[] foodIds) {
+        lock.writeLock().lock();
+        try {
+            rowsByIngredient.remove(ingredientId);
+            for (long foodId : foodIds) {
+                Integer row = ordinals.get(foodId);
+                if (row != null) {
+                    ingredients[row] = Arrays.stream(ingredients[row]).filter(id -> id != ingredientId).toArray();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result filter(FacetQuery query) {
+        lock.readLock().lock();
+        try {
+            int category = ANY_CATEGORY;
+            if (query.categoryId() != null) {
+                Integer ordinal = categoryOrdinals.get(query.categoryId());
+                if (ordinal == null) {
+                    return new Result(new long[0], 0);
+                }
+                category = ordinal;
+            }
+            boolean priceBounded = query.minPriceCents() != null || query.maxPriceCents() != null;
+            long minPrice = query.minPriceCents() == null ? Long.MIN_VALUE : query.minPriceCents();
+            long maxPrice = query.maxPriceCents() == null ? Long.MAX_VALUE : query.maxPriceCents();
+            FacetQuery.Sort sort = query.sort();
+
+            int[] heap = new int[(int) Math.min((long) query.offset() + query.limit(), Math.max(1, ordinals.size()))];
+            int heapSize = 0;
+            int total = 0;
+            List<RoaringBitmap> excluded = new ArrayList<>(query.exclude().size());
+            for (Long ingredientId : query.exclude()) {
+                RoaringBitmap bitmap = rowsByIngredient.get(ingredientId);
+                if (bitmap != null) {
+                    excluded.add(bitmap);
+                }
+            }
+            if (query.include().isEmpty()) {
+                // При проходе по всем строкам исключения проверяем по плоской битовой маске
+                long[] excludedRows = new long[(nextRow + 63) >>> 6];
+                excluded.forEach(bitmap -> bitmap.orInto(excludedRows));
+                for (int row = 0; row < nextRow; row++) {
+                    if (ids[row] != 0 && (excludedRows[row >>> 6] & (1L << row)) == 0
+                            && matches(row, category, priceBounded, minPrice, maxPrice)) {
+                        total++;
+                        heapSize = offer(heap, heapSize, row, sort);
+                    }
+                }
+            } else {
+                for (int row : ingredientRows(query.include(), excluded)) {
+                    if (matches(row, category, priceBounded, minPrice, maxPrice)) {
+                        total++;
+                        heapSize = offer(heap, heapSize, row, sort);
+                    }
+                }
+            }
+            // Разбираем кучу: худшая строка наверху, поэтому заполняем с конца
+            int[] sorted = new int[heapSize];
+            for (int i = heapSize - 1; i >= 0; i--) {
+                sorted[i] = heap[0];
+                heap[0] = heap[i];
+                siftDown(heap, i, 0, sort);
+            }
+            int from = Math.min(query.offset(), heapSize);
+            long[] page = new long[heapSize - from];
+            for (int i = from; i < heapSize; i++) {
+                page[i - from] = ids[sorted[i]];
+            }
+            return new Result(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static long toCents(BigDecimal price, RoundingMode rounding) {
+        return price.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+
+    private boolean matches(int row, int category, boolean priceBounded, long minPrice, long maxPrice) {
+        if (category != ANY_CATEGORY && categories[row] != category) {
+            return false;
+        }
+        if (priceBounded) {
+            long price = priceCents[row];
+            return price != NO_PRICE && price >= minPrice && price <= maxPrice;
+        }
+        return true;
+    }
+
+    // Строки со всем составом include без exclude: AND карт, начиная с самой маленькой, и ANDNOT
+    private int[] ingredientRows(List<Long> include, List<RoaringBitmap> excluded) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>(include.size());
+        for (Long ingredientId : include) {
+            RoaringBitmap bitmap = rowsByIngredient.get(ingredientId);
+            if (bitmap == null) {
+                return new int[0];
+            }
+            bitmaps.add(bitmap);
+        }
+        bitmaps.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        RoaringBitmap rows = bitmaps.get(0);
+        for (int i = 1; i < bitmaps.size() && !rows.isEmpty(); i++) {
+            rows = RoaringBitmap.and(rows, bitmaps.get(i));
+        }
+        for (int i = 0; i < excluded.size() && !rows.isEmpty(); i++) {
+            rows = RoaringBitmap.andNot(rows, excluded.get(i));
+        }
+        return rows.toIntArray(Integer.MAX_VALUE);
+    }
+
+    // Куча первых строк, на вершине худшая из отобранных
+    private int offer(int[] heap, int heapSize, int row, FacetQuery.Sort sort) {
+        if (heapSize < heap.length) {
+            heap[heapSize] = row;
+            int i = heapSize;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (compare(heap[i], heap[parent], sort) <= 0) {
+                    break;
+                }
+                swap(heap, i, parent);
+                i = parent;
+            }
+            return heapSize + 1;
+        }
+        if (heapSize > 0 && compare(row, heap[0], sort) < 0) {
+            heap[0] = row;
+            siftDown(heap, heapSize, 0, sort);
+        }
+        return heapSize;
+    }
+
+    private void siftDown(int[] heap, int heapSize, int i, FacetQuery.Sort sort) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && compare(heap[left], heap[worst], sort) > 0) {
+                worst = left;
+            }
+            if (right < heapSize && compare(heap[right], heap[worst], sort) > 0) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    // Меньше — раньше в выдаче. Блюда без цены при сортировке по цене всегда в конце
+    private int compare(int a, int b, FacetQuery.Sort sort) {
+        if (sort != FacetQuery.Sort.ID && priceCents[a] != priceCents[b]) {
+            if (priceCents[a] == NO_PRICE) {
+                return 1;
+            }
+            if (priceCents[b] == NO_PRICE) {
+                return -1;
+            }
+            return sort == FacetQuery.Sort.PRICE_ASC
+                    ? Long.compare(priceCents[a], priceCents[b])
+                    : Long.compare(priceCents[b], priceCents[a]);
+        }
+        return Long.compare(ids[a], ids[b]);
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    private void add(FoodSnapshot food) {
+        int row = freeCount > 0 ? freeRows[--freeCount] : nextRow++;
+        if (row == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            ingredients = Arrays.copyOf(ingredients, capacity);
+        }
+        long[] ingredientIds = new long[food.getIngredientCount()];
+        for (int i = 0; i < ingredientIds.length; i++) {
+            ingredientIds[i] = food.getIngredientId(i);
+            rowsByIngredient.computeIfAbsent(ingredientIds[i], key -> new RoaringBitmap()).add(row);
+        }
+        ids[row] = food.getId();
+        priceCents[row] = food.getPrice() == null ? NO_PRICE : toCents(food.getPrice(), RoundingMode.HALF_UP);
+        categories[row] = food.getCategoryId() == null
+                ? NO_CATEGORY
+                : categoryOrdinals.computeIfAbsent(food.getCategoryId(), key -> categoryOrdinals.size());
+        ingredients[row] = ingredientIds;
+        ordinals.put(food.getId(), row);
+    }
+
+    private void removeLocked(long foodId) {
+        Integer row = ordinals.remove(foodId);
+        if (row == null) {
+            return;
+        }
+        for (long ingredientId : ingredients[row]) {
+            RoaringBitmap bitmap = rowsByIngredient.get(ingredientId);
+            if (bitmap != null) {
+                bitmap.remove(row);
+                if (bitmap.isEmpty()) {
+                    rowsByIngredient.remove(ingredientId);
+                }
+            }
+        }
+        ids[row] = 0;
+        ingredients[row] = null;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+}
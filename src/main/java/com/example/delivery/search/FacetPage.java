@@ -0,0 +1,10 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.Food;
+import java.util.List;
+
+/**
+ * Страница выдачи фильтра витрины и общее число подошедших блюд.
+ */
+public record FacetPage(List<Food> content, int page, int size, int total) {
+}
@@ -0,0 +1,24 @@
+package com.example.delivery.search;
+
+import java.util.List;
+
+/**
+ * Запрос витрины к {@link FacetIndex}: категория, цена в копейках, состав, порядок и окно
+ * выдачи. {@code null} в границах и пустые списки ничего не ограничивают.
+ */
+public record FacetQuery(
+        Long categoryId,
+        Long minPriceCents,
+        Long maxPriceCents,
+        List<Long> include,
+        List<Long> exclude,
+        Sort sort,
+        int offset,
+        int limit) {
+
+    public enum Sort {
+        ID,
+        PRICE_ASC,
+        PRICE_DESC
+    }
+}
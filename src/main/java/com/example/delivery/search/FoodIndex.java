@@ -0,0 +1,22 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.FoodSnapshot;
+import java.util.Collection;
+
+/**
+ * Индекс каталога в памяти процесса. Строится целиком на старте
+ * ({@link FoodIndexInitializer}) и дальше обновляется из путей записи сервисов.
+ * Реализации потокобезопасны: чтений много, записей мало.
+ */
+public interface FoodIndex {
+
+    void rebuild(Collection<FoodSnapshot> foods); // Заменить содержимое индекса целиком
+
+    void index(FoodSnapshot food); // Добавить блюдо или заменить прежнюю версию
+
+    void remove(long foodId);
+
+    // Ингредиент удалён из состава этих блюд. Индексам, которые не смотрят на состав, делать нечего
+    default void removeIngredient(long ingredientId, long[] foodIds) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.repository.FoodRepository;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Строит все {@link FoodIndex} одним проходом по каталогу до того, как приложение
+ * объявлено готовым.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class FoodIndexInitializer implements ApplicationRunner {
+
+    private final FoodRepository foodRepository;
+    private final List<FoodIndex> foodIndexes;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        List<FoodSnapshot> foods = foodRepository.findAllWithDetails().stream()
+                .map(FoodSnapshot::of)
+                .toList();
+        for (FoodIndex index : foodIndexes) {
+            index.rebuild(foods);
+        }
+        log.info("Built {} food indexes over {} foods in {} ms",
+                foodIndexes.size(), foods.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.service.VisitCounterService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Поиск блюд с опечатками: SymSpell-словарь по словам названий. Для каждого слова
+ * заранее сохранены все варианты с удалением до {@link #MAX_DISTANCE} букв, поэтому
+ * кандидаты для слова запроса находятся по его собственным удалениям, без перебора словаря,
+ * и проверяются расстоянием Дамерау–Левенштейна (OSA).
+ *
+ * <p>Блюдо подходит, если каждое слово запроса совпало с каким-то его словом; ранжирование —
+ * по сумме расстояний, затем по популярности (просмотры /food/{id}). Слова с цифрами
+ * сравниваются только точно: номер — не опечатка, а варианты удалений для них раздули бы
+ * словарь.
+ */
+@Component
+public class FuzzyIndex implements FoodIndex {
+
+    public static final int MAX_LIMIT = 100;
+    static final int MAX_DISTANCE = 2;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String FOOD_URL = "/food/";
+
+    private final VisitCounterService visitCounterService;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Всё ниже меняется только под write-блокировкой
+    private final Map<String, SortedIntList> postings = new HashMap<>();
+    private final Map<String, List<String>> deletes = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] ids = new long[16];
+    private String[][] words = new String[16][];
+    private long[] scores = new long[16];
+    private int[] freeOrdinals = new int[16];
+    private int freeCount;
+    private int nextOrdinal;
+
+    public FuzzyIndex(VisitCounterService visitCounterService) {
+        this.visitCounterService = visitCounterService;
+    }
+
+    @Override
+    public void rebuild(Collection<FoodSnapshot> foods) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            deletes.clear();
+            ordinals.clear();
+            ids = new long[Math.max(16, foods.size())];
+            words = new String[ids.length][];
+            scores = new long[ids.length];
+            freeCount = 0;
+            nextOrdinal = 0;
+            for (FoodSnapshot food : foods) {
+                add(food);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(FoodSnapshot food) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(food.getId());
+            add(food);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long foodId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(foodId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Id не более {@code limit} блюд, в порядке возрастания суммарного расстояния и
+     * убывания популярности.
+     */
+    public long[] search(String query, int limit) {
+        String[] queryWords = tokenize(query);
+        if (queryWords.length == 0) {
+            return new long[0];
+        }
+        lock.readLock().lock();
+        try {
+            // Слово запроса -> подходящие слова словаря и их расстояния
+            List<Map<String, Integer>> matches = new ArrayList<>();
+            for (String word : queryWords) {
+                Map<String, Integer> candidates = candidates(word);
+                if (candidates.isEmpty()) {
+                    return new long[0];
+                }
+                matches.add(candidates);
+            }
+            // Кандидаты — блюда с самым редким словом, остальные слова только проверяем
+            matches.sort((a, b) -> Long.compare(postingsSize(a), postingsSize(b)));
+            int[] found = union(matches.get(0).keySet());
+            int[] distances = new int[found.length];
+            int count = 0;
+            next:
+            for (int ordinal : found) {
+                int total = 0;
+                for (Map<String, Integer> match : matches) {
+                    int best = bestDistance(ordinal, match);
+                    if (best < 0) {
+                        continue next;
+                    }
+                    total += best;
+                }
+                found[count] = ordinal;
+                distances[count++] = total;
+            }
+            return rank(found, distances, count, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Свой интервал, независимый от подсказок: выдачу fuzzy-поиска всё равно держит foodSearchCache
+    @Scheduled(fixedDelayString = "${search.fuzzy.popularity-refresh-millis:60000}")
+    public void refreshPopularity() {
+        Map<String, Integer> visits = visitCounterService.getAllVisitCounts();
+        lock.writeLock().lock();
+        try {
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                if (words[ordinal] != null) {
+                    scores[ordinal] = visits.getOrDefault(FOOD_URL + ids[ordinal], 0);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Топ-limit через кучу, где на вершине худший из отобранных: полная сортировка не нужна
+    private long[] rank(int[] candidates, int[] distances, int count, int limit) {
+        Comparator<Integer> worstFirst = (a, b) -> compare(candidates[b], distances[b], candidates[a], distances[a]);
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit, worstFirst);
+        for (int i = 0; i < count; i++) {
+            if (top.size() < limit) {
+                top.add(i);
+            } else if (compare(candidates[i], distances[i], candidates[top.peek()], distances[top.peek()]) < 0) {
+                top.poll();
+                top.add(i);
+            }
+        }
+        long[] result = new long[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = ids[candidates[top.poll()]];
+        }
+        return result;
+    }
+
+    // Меньше — выше в выдаче: расстояние, затем популярность, затем id
+    private int compare(int ordinalA, int distanceA, int ordinalB, int distanceB) {
+        int compare = Integer.compare(distanceA, distanceB);
+        if (compare != 0) {
+            return compare;
+        }
+        compare = Long.compare(scores[ordinalB], scores[ordinalA]);
+        return compare != 0 ? compare : Long.compare(ids[ordinalA], ids[ordinalB]);
+    }
+
+    // Объединение posting lists слов без повторов
+    private int[] union(Collection<String> dictionaryWords) {
+        if (dictionaryWords.size() == 1) {
+            SortedIntList list = postings.get(dictionaryWords.iterator().next());
+            int[] result = new int[list.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = list.get(i);
+            }
+            return result;
+        }
+        int[] result = new int[(int) dictionaryWords.stream().mapToLong(word -> postings.get(word).size()).sum()];
+        int count = 0;
+        for (String word : dictionaryWords) {
+            SortedIntList list = postings.get(word);
+            for (int i = 0; i < list.size(); i++) {
+                result[count++] = list.get(i);
+            }
+        }
+        return Arrays.stream(result).sorted().distinct().toArray();
+    }
+
+    // Минимальное расстояние, с которым слова блюда покрывают слово запроса, или -1
+    private int bestDistance(int ordinal, Map<String, Integer> candidates) {
+        int best = -1;
+        for (String word : words[ordinal]) {
+            Integer distance = candidates.get(word);
+            if (distance != null && (best < 0 || distance < best)) {
+                best = distance;
+            }
+        }
+        return best;
+    }
+
+    private long postingsSize(Map<String, Integer> candidates) {
+        long size = 0;
+        for (String word : candidates.keySet()) {
+            size += postings.get(word).size();
+        }
+        return size;
+    }
+
+    private Map<String, Integer> candidates(String word) {
+        Map<String, Integer> candidates = new HashMap<>();
+        if (hasDigit(word)) {
+            if (postings.containsKey(word)) {
+                candidates.put(word, 0);
+            }
+            return candidates;
+        }
+        int maxDistance = maxDistance(word);
+        for (String variant : deleteVariants(word, maxDistance)) {
+            for (String dictionaryWord : deletes.getOrDefault(variant, List.of())) {
+                if (!candidates.containsKey(dictionaryWord)) {
+                    int distance = distance(word, dictionaryWord, maxDistance);
+                    if (distance >= 0) {
+                        candidates.put(dictionaryWord, distance);
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private void add(FoodSnapshot food) {
+        if (food.getName() == null) {
+            return;
+        }
+        int ordinal = freeCount > 0 ? freeOrdinals[--freeCount] : nextOrdinal++;
+        if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            words = Arrays.copyOf(words, ids.length);
+            scores = Arrays.copyOf(scores, ids.length);
+        }
+        String[] foodWords = Arrays.stream(tokenize(food.getName())).distinct().toArray(String[]::new);
+        for (int i = 0; i < foodWords.length; i++) {
+            SortedIntList list = postings.get(foodWords[i]);
+            if (list == null) {
+                list = new SortedIntList();
+                postings.put(foodWords[i], list);
+                addDeletes(foodWords[i]);
+            } else {
+                // Одна копия строки на слово словаря, а не на каждое блюдо
+                foodWords[i] = canonical(foodWords[i]);
+            }
+            list.add(ordinal);
+        }
+        ids[ordinal] = food.getId();
+        words[ordinal] = foodWords;
+        scores[ordinal] = visitCounterService.getVisitCount(FOOD_URL + food.getId());
+        ordinals.put(food.getId(), ordinal);
+    }
+
+    private void removeLocked(long foodId) {
+        Integer ordinal = ordinals.remove(foodId);
+        if (ordinal == null) {
+            return;
+        }
+        for (String word : words[ordinal]) {
+            SortedIntList list = postings.get(word);
+            list.remove(ordinal);
+            if (list.size() == 0) {
+                postings.remove(word);
+                removeDeletes(word);
+            }
+        }
+        words[ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+        }
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    private String canonical(String word) {
+        List<String> sameWord = deletes.get(word);
+        if (sameWord != null) {
+            for (String candidate : sameWord) {
+                if (candidate.equals(word)) {
+                    return candidate;
+                }
+            }
+        }
+        return word;
+    }
+
+    private void addDeletes(String word) {
+        if (hasDigit(word)) {
+            return;
+        }
+        for (String variant : deleteVariants(word, MAX_DISTANCE)) {
+            deletes.computeIfAbsent(variant, key -> new ArrayList<>(1)).add(word);
+        }
+    }
+
+    private void removeDeletes(String word) {
+        if (hasDigit(word)) {
+            return;
+        }
+        for (String variant : deleteVariants(word, MAX_DISTANCE)) {
+            List<String> list = deletes.get(variant);
+            list.remove(word);
+            if (list.isEmpty()) {
+                deletes.remove(variant);
+            }
+        }
+    }
+
+    // Само слово и все варианты без 1..maxDeletes букв
+    private static Set<String> deleteVariants(String word, int maxDeletes) {
+        Set<String> variants = new HashSet<>();
+        variants.add(word);
+        List<String> frontier = List.of(word);
+        for (int depth = 0; depth < maxDeletes; depth++) {
+            List<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                if (current.length() <= 1) {
+                    continue;
+                }
+                for (int i = 0; i < current.length(); i++) {
+                    String variant = current.substring(0, i) + current.substring(i + 1);
+                    if (variants.add(variant)) {
+                        next.add(variant);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return variants;
+    }
+
+    // В коротком слове две опечатки — это уже другое слово
+    static int maxDistance(String word) {
+        return word.length() <= 4 ? 1 : MAX_DISTANCE;
+    }
+
+    /**
+     * Расстояние OSA (Левенштейн плюс перестановка соседних букв) или -1, если оно
+     * больше {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return -1;
+        }
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previousPrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return -1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()] <= max ? previous[b.length()] : -1;
+    }
+
+    private static String[] tokenize(String text) {
+        return Arrays.stream(WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static boolean hasDigit(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.FoodSnapshot;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Обратный индекс «ингредиент -> блюда» на сжатых битовых картах. В картах лежат не id
+ * блюд, а плотные номера строк, как в {@link FacetIndex}: id типа long в int не влезает,
+ * а разреженные id раздували бы карты. Запрос «есть A и B, нет C» считается как
+ * AND/ANDNOT карт, без загрузки составов из базы.
+ */
+@Component
+public class IngredientIndex implements FoodIndex {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Всё ниже меняется только под write-блокировкой
+    private final Map<Long, RoaringBitmap> rowsByIngredient = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private RoaringBitmap allRows = new RoaringBitmap();
+    private long[] ids = new long[16];
+    private long[][] ingredients = new long[16][];
+    private int[] freeRows = new int[16];
+    private int freeCount;
+    private int nextRow;
+
+    @Override
+    public void rebuild(Collection<FoodSnapshot> foods) {
+        lock.writeLock().lock();
+        try {
+            rowsByIngredient.clear();
+            ordinals.clear();
+            allRows = new RoaringBitmap();
+            ids = new long[Math.max(16, foods.size())];
+            ingredients = new long[ids.length][];
+            freeCount = 0;
+            nextRow = 0;
+            for (FoodSnapshot food : foods) {
+                add(food);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(FoodSnapshot food) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(food.getId());
+            add(food);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long foodId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(foodId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeIngredient(long ingredientId, long[] foodIds) {
+        lock.writeLock().lock();
+        try {
+            rowsByIngredient.remove(ingredientId);
+            for (long foodId : foodIds) {
+                Integer row = ordinals.get(foodId);
+                if (row != null) {
+                    ingredients[row] = Arrays.stream(ingredients[row]).filter(id -> id != ingredientId).toArray();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Id блюд по возрастанию, в которых есть все ингредиенты {@code include} и нет ни одного
+     * из {@code exclude}; не более {@code limit}. Пустой {@code include} — весь каталог.
+     */
+    public long[] filter(Collection<Long> include, Collection<Long> exclude, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = allRows;
+            if (!include.isEmpty()) {
+                List<RoaringBitmap> bitmaps = new ArrayList<>(include.size());
+                for (Long ingredientId : include) {
+                    RoaringBitmap bitmap = rowsByIngredient.get(ingredientId);
+                    if (bitmap == null) {
+                        return new long[0];
+                    }
+                    bitmaps.add(bitmap);
+                }
+                // С самой маленькой карты промежуточные результаты сразу невелики
+                bitmaps.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+                result = bitmaps.get(0);
+                for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+                    result = RoaringBitmap.and(result, bitmaps.get(i));
+                }
+            }
+            for (Long ingredientId : exclude) {
+                RoaringBitmap bitmap = rowsByIngredient.get(ingredientId);
+                if (bitmap != null && !result.isEmpty()) {
+                    result = RoaringBitmap.andNot(result, bitmap);
+                }
+            }
+            // Номера строк не упорядочены по id: переводим все подошедшие строки и сортируем
+            int[] rows = result.toIntArray(Integer.MAX_VALUE);
+            long[] found = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                found[i] = ids[rows[i]];
+            }
+            Arrays.sort(found);
+            return found.length <= limit ? found : Arrays.copyOf(found, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(FoodSnapshot food) {
+        int row = freeCount > 0 ? freeRows[--freeCount] : nextRow++;
+        if (row == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            ingredients = Arrays.copyOf(ingredients, ids.length);
+        }
+        long[] ingredientIds = new long[food.getIngredientCount()];
+        for (int i = 0; i < ingredientIds.length; i++) {
+            ingredientIds[i] = food.getIngredientId(i);
+            rowsByIngredient.computeIfAbsent(ingredientIds[i], key -> new RoaringBitmap()).add(row);
+        }
+        ids[row] = food.getId();
+        ingredients[row] = ingredientIds;
+        ordinals.put(food.getId(), row);
+        allRows.add(row);
+    }
+
+    private void removeLocked(long foodId) {
+        Integer row = ordinals.remove(foodId);
+        if (row == null) {
+            return;
+        }
+        for (long ingredientId : ingredients[row]) {
+            RoaringBitmap bitmap = rowsByIngredient.get(ingredientId);
+            if (bitmap != null) {
+                bitmap.remove(row);
+                if (bitmap.isEmpty()) {
+                    rowsByIngredient.remove(ingredientId);
+                }
+            }
+        }
+        allRows.remove(row);
+        ids[row] = 0;
+        ingredients[row] = null;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+}
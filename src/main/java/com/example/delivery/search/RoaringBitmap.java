@@ -0,0 +1,312 @@
+package com.example.delivery.search;
+
+import java.util.Arrays;
+
+/**
+ * Сжатое множество неотрицательных int в духе Roaring. Старшие 16 бит значения выбирают
+ * контейнер, младшие хранятся в нём: отсортированным массивом char, пока их не больше
+ * {@link #ARRAY_LIMIT}, иначе битовой картой на 65536 бит. Оба варианта занимают не больше
+ * 8 КБ, а AND/ANDNOT идут по контейнерам с общими ключами, не трогая пустые диапазоны.
+ * Не потокобезопасен, индексы защищают его своей блокировкой.
+ */
+final class RoaringBitmap {
+
+    static final int ARRAY_LIMIT = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    void add(int value) {
+        char key = (char) (value >>> 16);
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, key, new Container());
+        }
+        containers[index].add((char) value);
+    }
+
+    void remove(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        containers[index].remove((char) value);
+        if (containers[index].cardinality == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            containers[--size] = null;
+        }
+    }
+
+    boolean contains(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Не более {@code limit} первых значений по возрастанию.
+     */
+    int[] toIntArray(int limit) {
+        int[] result = new int[Math.min(limit, cardinality())];
+        int count = 0;
+        for (int i = 0; i < size && count < result.length; i++) {
+            count = containers[i].copyTo(result, count, keys[i] << 16);
+        }
+        return result;
+    }
+
+    /**
+     * Выставляет свои значения в обычном битовом множестве {@code words}, которое должно
+     * вмещать максимальное значение.
+     */
+    void orInto(long[] words) {
+        for (int i = 0; i < size; i++) {
+            containers[i].orInto(words, keys[i] << 10);
+        }
+    }
+
+    static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.append(a.keys[i], a.containers[i].and(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            Container container = j < b.size && b.keys[j] == a.keys[i]
+                    ? a.containers[i].andNot(b.containers[j])
+                    : a.containers[i].copy();
+            result.append(a.keys[i], container);
+        }
+        return result;
+    }
+
+    // Ключи результата операций идут по возрастанию, поэтому только дописываем
+    private void append(char key, Container container) {
+        if (container.cardinality > 0) {
+            insert(size, key, container);
+        }
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    /**
+     * Младшие 16 бит значений одного диапазона. Пока {@code bits == null}, значения лежат
+     * в первых {@code cardinality} элементах {@code values}.
+     */
+    private static final class Container {
+
+        private char[] values = new char[4];
+        private long[] bits;
+        private int cardinality;
+
+        private static Container ofBits(long[] bits) {
+            Container container = new Container();
+            container.bits = bits;
+            for (long word : bits) {
+                container.cardinality += Long.bitCount(word);
+            }
+            if (container.cardinality <= ARRAY_LIMIT) {
+                container.toArrayContainer();
+            }
+            return container;
+        }
+
+        boolean contains(char value) {
+            if (bits != null) {
+                return (bits[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        void add(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) == 0) {
+                    bits[value >>> 6] |= mask;
+                    cardinality++;
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                toBitmapContainer();
+                add(value);
+                return;
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+        }
+
+        void remove(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) != 0) {
+                    bits[value >>> 6] &= ~mask;
+                    if (--cardinality <= ARRAY_LIMIT) {
+                        toArrayContainer();
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+        }
+
+        Container and(Container other) {
+            if (bits != null && other.bits != null) {
+                long[] result = new long[1024];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = bits[i] & other.bits[i];
+                }
+                return ofBits(result);
+            }
+            // Хотя бы один — массив: проходим по меньшему и проверяем в другом
+            Container array = bits == null ? this : other;
+            Container probe = array == this ? other : this;
+            Container result = new Container();
+            result.values = new char[array.cardinality];
+            for (int i = 0; i < array.cardinality; i++) {
+                if (probe.contains(array.values[i])) {
+                    result.values[result.cardinality++] = array.values[i];
+                }
+            }
+            return result;
+        }
+
+        Container andNot(Container other) {
+            if (bits == null) {
+                Container result = new Container();
+                result.values = new char[cardinality];
+                for (int i = 0; i < cardinality; i++) {
+                    if (!other.contains(values[i])) {
+                        result.values[result.cardinality++] = values[i];
+                    }
+                }
+                return result;
+            }
+            long[] result = bits.clone();
+            if (other.bits != null) {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] &= ~other.bits[i];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    result[other.values[i] >>> 6] &= ~(1L << other.values[i]);
+                }
+            }
+            return ofBits(result);
+        }
+
+        Container copy() {
+            Container copy = new Container();
+            copy.values = values == null ? null : Arrays.copyOf(values, cardinality);
+            copy.bits = bits == null ? null : bits.clone();
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        void orInto(long[] words, int wordOffset) {
+            if (bits != null) {
+                for (int i = 0; i < bits.length && wordOffset + i < words.length; i++) {
+                    words[wordOffset + i] |= bits[i];
+                }
+                return;
+            }
+            for (int i = 0; i < cardinality; i++) {
+                words[wordOffset + (values[i] >>> 6)] |= 1L << values[i];
+            }
+        }
+
+        int copyTo(int[] target, int offset, int high) {
+            if (bits == null) {
+                int count = Math.min(cardinality, target.length - offset);
+                for (int i = 0; i < count; i++) {
+                    target[offset++] = high | values[i];
+                }
+                return offset;
+            }
+            for (int i = 0; i < bits.length && offset < target.length; i++) {
+                long word = bits[i];
+                while (word != 0 && offset < target.length) {
+                    target[offset++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+
+        private void toBitmapContainer() {
+            bits = new long[1024];
+            for (int i = 0; i < cardinality; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            values = null;
+        }
+
+        private void toArrayContainer() {
+            values = new char[Math.max(4, cardinality)];
+            int count = 0;
+            for (int i = 0; i < bits.length; i++) {
+                long word = bits[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            bits = null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.delivery.search;
+
+import java.util.Arrays;
+
+/**
+ * Отсортированный список int без упаковки в Integer — posting list инвертированного индекса.
+ * Не потокобезопасен, индексы защищают его своей блокировкой.
+ */
+final class SortedIntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    void add(int value) {
+        // Новые порядковые номера растут, так что обычно это дописывание в конец
+        if (size == 0 || values[size - 1] < value) {
+            grow();
+            values[size++] = value;
+            return;
+        }
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return;
+        }
+        int insertAt = -index - 1;
+        grow();
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+    }
+
+    void remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+    }
+
+    private void grow() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+    }
+}
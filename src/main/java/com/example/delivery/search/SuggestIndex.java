@@ -0,0 +1,433 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.service.VisitCounterService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Автодополнение по префиксу названий блюд и категорий: radix-trie с лучшими
+ * {@link #MAX_LIMIT} записями, закэшированными в крупных узлах. Запрос проходит по
+ * префиксу и берёт готовый топ узла, а мелкие поддеревья (меньше {@link #CACHE_THRESHOLD}
+ * записей) сортируются на лету. Популярность — просмотры /food/{id} и /category/{id}
+ * из {@link VisitCounterService}, пересчитывается по расписанию.
+ *
+ * <p>Категория попадает в индекс, пока на неё ссылается хотя бы одно блюдо.
+ */
+@Component
+public class SuggestIndex implements FoodIndex {
+
+    public static final int MAX_LIMIT = 20;
+    static final int CACHE_THRESHOLD = 64;
+    private static final String FOOD_URL = "/food/";
+    private static final String CATEGORY_URL = "/category/";
+
+    private final VisitCounterService visitCounterService;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Всё ниже меняется только под write-блокировкой
+    private Node root = new Node("");
+    private final Map<Long, Integer> foodEntries = new HashMap<>();
+    private final Map<Long, Integer> categoryEntries = new HashMap<>();
+    private final Map<Long, Integer> categoryFoodCounts = new HashMap<>();
+    private final Map<Long, Long> foodCategories = new HashMap<>();
+    // Записи по handle; освобождённые handle переиспользуются
+    private String[] keys = new String[16];
+    private String[] names = new String[16];
+    private long[] entityIds = new long[16];
+    private Suggestion.Type[] types = new Suggestion.Type[16];
+    private long[] scores = new long[16];
+    private int[] freeHandles = new int[16];
+    private int freeCount;
+    private int nextHandle;
+
+    private final Comparator<Integer> byRank = (a, b) -> {
+        int compare = Long.compare(scores[b], scores[a]);
+        if (compare != 0) {
+            return compare;
+        }
+        // При равной популярности короткое название обычно и есть то, что ищут
+        compare = Integer.compare(keys[a].length(), keys[b].length());
+        return compare != 0 ? compare : keys[a].compareTo(keys[b]);
+    };
+
+    public SuggestIndex(VisitCounterService visitCounterService) {
+        this.visitCounterService = visitCounterService;
+    }
+
+    @Override
+    public void rebuild(Collection<FoodSnapshot> foods) {
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+            foodEntries.clear();
+            categoryEntries.clear();
+            categoryFoodCounts.clear();
+            foodCategories.clear();
+            Arrays.fill(keys, null);
+            Arrays.fill(names, null);
+            freeCount = 0;
+            nextHandle = 0;
+            for (FoodSnapshot food : foods) {
+                add(food, food.getCategoryName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(FoodSnapshot food) {
+        lock.writeLock().lock();
+        try {
+            // Снимок без названия категории ничего о нём не говорит: берём известное индексу,
+            // пока удаление блюда не убрало запись единственной в категории
+            String categoryName = food.getCategoryName();
+            Integer categoryHandle = food.getCategoryId() == null ? null : categoryEntries.get(food.getCategoryId());
+            if (categoryName == null && categoryHandle != null) {
+                categoryName = names[categoryHandle];
+            }
+            removeLocked(food.getId());
+            add(food, categoryName);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long foodId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(foodId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * До {@code limit} (не больше {@link #MAX_LIMIT}) самых популярных записей,
+     * название которых начинается с {@code prefix} без учёта регистра.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            if (node == null) {
+                return List.of();
+            }
+            int[] top = top(node);
+            List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, top.length));
+            for (int i = 0; i < top.length && i < limit; i++) {
+                int handle = top[i];
+                suggestions.add(new Suggestion(types[handle], entityIds[handle], names[handle], scores[handle]));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Переносит в индекс свежие счётчики просмотров. Счётчики читаются до блокировки,
+     * так что подсказки не ждут, пока собирается карта посещений.
+     */
+    @Scheduled(fixedDelayString = "${search.suggest.popularity-refresh-millis:60000}")
+    public void refreshPopularity() {
+        Map<String, Integer> visits = visitCounterService.getAllVisitCounts();
+        lock.writeLock().lock();
+        try {
+            boolean changed = false;
+            for (int handle = 0; handle < nextHandle; handle++) {
+                if (keys[handle] != null) {
+                    long score = visits.getOrDefault(url(types[handle], entityIds[handle]), 0);
+                    changed |= scores[handle] != score;
+                    scores[handle] = score;
+                }
+            }
+            if (changed) {
+                invalidateAll(root);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(FoodSnapshot food, String categoryName) {
+        if (food.getName() != null) {
+            foodEntries.put(food.getId(), insert(Suggestion.Type.FOOD, food.getId(), food.getName()));
+        }
+        Long categoryId = food.getCategoryId();
+        if (categoryId == null) {
+            return;
+        }
+        foodCategories.put(food.getId(), categoryId);
+        categoryFoodCounts.merge(categoryId, 1, Integer::sum);
+        // Переименованная категория приходит со следующим же снимком её блюда
+        if (categoryName == null) {
+            return;
+        }
+        Integer handle = categoryEntries.get(categoryId);
+        if (handle != null && !names[handle].equals(categoryName)) {
+            delete(handle);
+            categoryEntries.remove(categoryId);
+        }
+        if (!categoryEntries.containsKey(categoryId)) {
+            categoryEntries.put(categoryId, insert(Suggestion.Type.CATEGORY, categoryId, categoryName));
+        }
+    }
+
+    private void removeLocked(long foodId) {
+        Integer handle = foodEntries.remove(foodId);
+        if (handle != null) {
+            delete(handle);
+        }
+        Long categoryId = foodCategories.remove(foodId);
+        if (categoryId != null && categoryFoodCounts.merge(categoryId, -1, Integer::sum) == 0) {
+            categoryFoodCounts.remove(categoryId);
+            Integer categoryHandle = categoryEntries.remove(categoryId);
+            if (categoryHandle != null) {
+                delete(categoryHandle);
+            }
+        }
+    }
+
+    private int insert(Suggestion.Type type, long id, String name) {
+        int handle = freeCount > 0 ? freeHandles[--freeCount] : nextHandle++;
+        if (handle == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            names = Arrays.copyOf(names, capacity);
+            entityIds = Arrays.copyOf(entityIds, capacity);
+            types = Arrays.copyOf(types, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        String key = name.toLowerCase(Locale.ROOT);
+        keys[handle] = key;
+        names[handle] = name;
+        entityIds[handle] = id;
+        types[handle] = type;
+        scores[handle] = visitCounterService.getVisitCount(url(type, id));
+
+        Node node = root;
+        int position = 0;
+        while (true) {
+            node.count++;
+            node.top = null;
+            if (position == key.length()) {
+                node.terminals = append(node.terminals, handle);
+                return handle;
+            }
+            int index = node.childIndex(key.charAt(position));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(position));
+                leaf.terminals = new int[] {handle};
+                leaf.count = 1;
+                node.addChild(leaf);
+                return handle;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                // Ключ расходится с меткой ребра посередине — делим ребро
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.addChild(child);
+                middle.count = child.count;
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            position += common;
+        }
+    }
+
+    private void delete(int handle) {
+        String key = keys[handle];
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int position = 0;
+        path.add(node);
+        while (position < key.length()) {
+            node = node.children[node.childIndex(key.charAt(position))];
+            position += node.label.length();
+            path.add(node);
+        }
+        node.terminals = without(node.terminals, handle);
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node current = path.get(i);
+            current.count--;
+            current.top = null;
+            if (current.count == 0 && i > 0) {
+                path.get(i - 1).removeChild(current);
+            }
+        }
+        keys[handle] = null;
+        names[handle] = null;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+    }
+
+    // Узел, под которым лежат все ключи с данным префиксом
+    private Node find(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(position));
+            if (index < 0) {
+                return null;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, prefix, position);
+            if (position + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            position += common;
+        }
+        return node;
+    }
+
+    /**
+     * Лучшие записи поддерева. Для крупных узлов результат кэшируется: читатели под
+     * read-блокировкой могут посчитать его одновременно, но получат одно и то же.
+     */
+    private int[] top(Node node) {
+        int[] cached = node.top;
+        if (cached != null) {
+            return cached;
+        }
+        List<Integer> candidates = new ArrayList<>();
+        if (node.count < CACHE_THRESHOLD) {
+            collect(node, candidates);
+        } else {
+            for (int handle : node.terminals) {
+                candidates.add(handle);
+            }
+            for (Node child : node.children) {
+                for (int handle : top(child)) {
+                    candidates.add(handle);
+                }
+            }
+        }
+        candidates.sort(byRank);
+        int[] top = candidates.stream().limit(MAX_LIMIT).mapToInt(Integer::intValue).toArray();
+        if (node.count >= CACHE_THRESHOLD) {
+            node.top = top;
+        }
+        return top;
+    }
+
+    private static void collect(Node node, List<Integer> handles) {
+        for (int handle : node.terminals) {
+            handles.add(handle);
+        }
+        for (Node child : node.children) {
+            collect(child, handles);
+        }
+    }
+
+    private static void invalidateAll(Node node) {
+        if (node.count < CACHE_THRESHOLD) {
+            return;
+        }
+        node.top = null;
+        for (Node child : node.children) {
+            invalidateAll(child);
+        }
+    }
+
+    private static String url(Suggestion.Type type, long id) {
+        return (type == Suggestion.Type.FOOD ? FOOD_URL : CATEGORY_URL) + id;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] result = Arrays.copyOf(values, values.length + 1);
+        result[values.length] = value;
+        return result;
+    }
+
+    private static int[] without(int[] values, int value) {
+        int[] result = new int[values.length - 1];
+        int count = 0;
+        for (int current : values) {
+            if (current != value) {
+                result[count++] = current;
+            }
+        }
+        return result;
+    }
+
+    private static final class Node {
+        private static final int[] NO_HANDLES = new int[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final char[] NO_CHARS = new char[0];
+
+        String label;
+        // Дети отсортированы по первому символу метки
+        char[] firstChars = NO_CHARS;
+        Node[] children = NO_CHILDREN;
+        int[] terminals = NO_HANDLES;
+        int count;
+        volatile int[] top;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char c) {
+            int index = Arrays.binarySearch(firstChars, c);
+            return index >= 0 ? index : -1;
+        }
+
+        void addChild(Node child) {
+            char c = child.label.charAt(0);
+            int insertAt = -Arrays.binarySearch(firstChars, c) - 1;
+            char[] chars = new char[firstChars.length + 1];
+            Node[] nodes = new Node[children.length + 1];
+            System.arraycopy(firstChars, 0, chars, 0, insertAt);
+            System.arraycopy(children, 0, nodes, 0, insertAt);
+            chars[insertAt] = c;
+            nodes[insertAt] = child;
+            System.arraycopy(firstChars, insertAt, chars, insertAt + 1, firstChars.length - insertAt);
+            System.arraycopy(children, insertAt, nodes, insertAt + 1, children.length - insertAt);
+            firstChars = chars;
+            children = nodes;
+        }
+
+        void removeChild(Node child) {
+            int index = childIndex(child.label.charAt(0));
+            char[] chars = new char[firstChars.length - 1];
+            Node[] nodes = new Node[children.length - 1];
+            System.arraycopy(firstChars, 0, chars, 0, index);
+            System.arraycopy(children, 0, nodes, 0, index);
+            System.arraycopy(firstChars, index + 1, chars, index, chars.length - index);
+            System.arraycopy(children, index + 1, nodes, index, nodes.length - index);
+            firstChars = chars;
+            children = nodes;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.delivery.search;
+
+/**
+ * Подсказка автодополнения: блюдо или категория и её популярность (число просмотров).
+ */
+public record Suggestion(Type type, long id, String name, long popularity) {
+
+    public enum Type {
+        FOOD,
+        CATEGORY
+    }
+}
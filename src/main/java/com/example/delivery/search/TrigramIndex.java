@@ -0,0 +1,193 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.FoodSnapshot;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Инвертированный индекс триграмм названий блюд для поиска подстроки без скана таблицы.
+ * Каждое блюдо получает плотный порядковый номер, posting list триграммы — отсортированные
+ * номера блюд. Запрос пересекает списки своих триграмм и проверяет кандидатов по названию,
+ * поэтому результат совпадает с {@code LOWER(name) LIKE '%query%'} (только без особого
+ * смысла у {@code %} и {@code _} в запросе).
+ */
+@Component
+public class TrigramIndex implements FoodIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Всё ниже меняется только под write-блокировкой
+    private final Map<Long, SortedIntList> postings = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] ids = new long[16];
+    private String[] names = new String[16];
+    private int[] freeOrdinals = new int[16];
+    private int freeCount;
+    private int nextOrdinal;
+
+    @Override
+    public void rebuild(Collection<FoodSnapshot> foods) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            ordinals.clear();
+            ids = new long[Math.max(16, foods.size())];
+            names = new String[ids.length];
+            freeCount = 0;
+            nextOrdinal = 0;
+            for (FoodSnapshot food : foods) {
+                add(food.getId(), food.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(FoodSnapshot food) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(food.getId());
+            add(food.getId(), food.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long foodId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(foodId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Id блюд, в названии которых есть {@code query} без учёта регистра, по возрастанию.
+     */
+    public long[] search(String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            if (needle.length() < 3) {
+                // Для одной-двух букв триграмм нет — проходим по названиям в памяти
+                return scan(needle);
+            }
+            List<SortedIntList> lists = new ArrayList<>();
+            for (long trigram : trigrams(needle)) {
+                SortedIntList list = postings.get(trigram);
+                if (list == null) {
+                    return new long[0];
+                }
+                lists.add(list);
+            }
+            return intersectAndVerify(lists, needle);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] intersectAndVerify(List<SortedIntList> lists, String needle) {
+        // Идём по самому короткому списку и ищем его элементы в остальных
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        SortedIntList shortest = lists.get(0);
+        long[] result = new long[shortest.size()];
+        int count = 0;
+        candidates:
+        for (int i = 0; i < shortest.size(); i++) {
+            int ordinal = shortest.get(i);
+            for (int j = 1; j < lists.size(); j++) {
+                if (!lists.get(j).contains(ordinal)) {
+                    continue candidates;
+                }
+            }
+            // Все триграммы есть, но не обязательно подряд — проверяем саму подстроку
+            if (names[ordinal].contains(needle)) {
+                result[count++] = ids[ordinal];
+            }
+        }
+        long[] found = Arrays.copyOf(result, count);
+        Arrays.sort(found);
+        return found;
+    }
+
+    private long[] scan(String needle) {
+        long[] result = new long[ordinals.size()];
+        int count = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (names[ordinal] != null && names[ordinal].contains(needle)) {
+                result[count++] = ids[ordinal];
+            }
+        }
+        long[] found = Arrays.copyOf(result, count);
+        Arrays.sort(found);
+        return found;
+    }
+
+    private void add(long id, String name) {
+        if (name == null) {
+            return;
+        }
+        int ordinal = freeCount > 0 ? freeOrdinals[--freeCount] : nextOrdinal++;
+        if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            names = Arrays.copyOf(names, names.length * 2);
+        }
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        ids[ordinal] = id;
+        names[ordinal] = lowerName;
+        ordinals.put(id, ordinal);
+        for (long trigram : trigrams(lowerName)) {
+            postings.computeIfAbsent(trigram, key -> new SortedIntList()).add(ordinal);
+        }
+    }
+
+    private void removeLocked(long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        for (long trigram : trigrams(names[ordinal])) {
+            SortedIntList list = postings.get(trigram);
+            list.remove(ordinal);
+            if (list.size() == 0) {
+                postings.remove(trigram);
+            }
+        }
+        names[ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+        }
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    // Три символа UTF-16 упакованы в один long
+    private static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        // Повторы внутри строки дали бы лишнюю работу при добавлении и пересечении
+        return Arrays.stream(trigrams).distinct().toArray();
+    }
+}
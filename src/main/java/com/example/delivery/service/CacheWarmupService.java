@@ -0,0 +1,8 @@
+package com.example.delivery.service;
+
+public interface CacheWarmupService {
+
+    int saveSnapshot(); // Сохранить горячие ключи foodCache на диск
+
+    int warmUp(); // Загрузить блюда из снимка в foodCache
+}
@@ -1,12 +1,18 @@
 package com.example.delivery.service;
 
 import com.example.delivery.model.Category;
+import com.example.delivery.model.KeysetPage;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CategoryService {
     List<Category> getAllCategories();
 
+    KeysetPage<Category> getCategoryPage(Long after, int limit);
+
+    Stream<Category> streamAllCategories(); // Курсором на сервере, читать внутри транзакции
+
     Category getCategoryById(Long id);
 
     Category saveCategory(Category category);
@@ -0,0 +1,11 @@
+package com.example.delivery.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface FoodImportService {
+
+    // Блюда построчно из NDJSON, итог по каждой строке тоже NDJSON
+    void importNdjson(InputStream in, OutputStream out) throws IOException;
+}
@@ -0,0 +1,23 @@
+package com.example.delivery.service;
+
+import com.example.delivery.model.Food;
+import com.example.delivery.search.FacetPage;
+import com.example.delivery.search.FacetQuery;
+import com.example.delivery.search.Suggestion;
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface FoodSearchService {
+
+    List<Food> searchFoodByNameFuzzy(String name, int limit); // Поиск с опечатками, ближайшие первыми
+
+    List<Food> filterFoodsByIngredients(List<Long> include, List<Long> exclude, int limit); // Состав: есть все include, нет exclude
+
+    FacetPage browseFoods(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                          List<Long> include, List<Long> exclude, FacetQuery.Sort sort,
+                          int page, int size); // Фильтр витрины с сортировкой и страницами
+
+    List<Food> getSimilarFoods(Long id, int k); // Похожие по составу, самые похожие первыми
+
+    List<Suggestion> suggest(String prefix, int limit); // Автодополнение по префиксу названия
+}
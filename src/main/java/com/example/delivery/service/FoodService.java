@@ -1,21 +1,36 @@
 package com.example.delivery.service;
 
 import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodImportResult;
+import com.example.delivery.model.KeysetPage;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface FoodService {
 
-    List<Food> saveFoodsBulk(List<Food> foods);
+    List<Food> saveFoodsBulk(List<Food> foods); // Всё или ничего по данным, запись пачками
+
+    List<FoodImportResult> importFoods(Map<Long, Food> foodsByLine); // Пачка NDJSON-импорта, итог по каждой строке
 
     List<Food> getAllFood(); // Получить весь список еды
 
+    KeysetPage<Food> getFoodPage(Long after, int limit); // Страница по id после курсора
+
+    Stream<Food> streamAllFood(); // Весь каталог курсором, читать внутри транзакции
+
     Food getFoodById(Long id); // Получить еду по ID
 
     Food saveFood(Food food); // Добавить/обновить еду
 
     Food addIngredientToFood(Long foodId, Long ingredientId);
 
+    Food removeIngredientFromFood(Long foodId, Long ingredientId);
+
+    Food replaceIngredients(Long foodId, Set<Long> ingredientIds); // Новый состав целиком, пишется только разница
+
     Food updateFood(Long id, Food updatedFood);
 
     void deleteFood(Long id); // Удалить еду по ID
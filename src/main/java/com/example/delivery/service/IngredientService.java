@@ -1,12 +1,18 @@
 package com.example.delivery.service;
 
 import com.example.delivery.model.Ingredient;
+import com.example.delivery.model.KeysetPage;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface IngredientService {
     List<Ingredient> getAllIngredients();
 
+    KeysetPage<Ingredient> getIngredientPage(Long after, int limit);
+
+    Stream<Ingredient> streamAllIngredients(); // Курсором на сервере, читать внутри транзакции
+
     Ingredient getIngredientById(Long id);
 
     Ingredient saveIngredient(Ingredient ingredient);
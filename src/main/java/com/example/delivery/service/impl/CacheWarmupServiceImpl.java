@@ -0,0 +1,122 @@
+package com.example.delivery.service.impl;
+
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.service.CacheWarmupService;
+import com.example.delivery.utils.CustomCache;
+import com.example.delivery.utils.KeySnapshotFile;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Переживает рестарт вместе с рабочим набором foodCache: периодически и при остановке
+ * пишет самые горячие id на диск, а на старте (ApplicationRunner отрабатывает до того,
+ * как приложение объявлено готовым) загружает их одним findAllById.
+ */
+@Slf4j
+@Service
+public class CacheWarmupServiceImpl implements CacheWarmupService, ApplicationRunner {
+
+    private final FoodRepository foodRepository;
+    private final CustomCache<Long, FoodSnapshot> foodCache;
+    private final Path snapshotPath;
+    private final int maxKeys;
+    private final boolean enabled;
+
+    @Autowired
+    public CacheWarmupServiceImpl(
+            FoodRepository foodRepository,
+            CustomCache<Long, FoodSnapshot> foodCache,
+            @Value("${cache.food.snapshot.path:cache/food-cache.snapshot}") Path snapshotPath,
+            @Value("${cache.food.snapshot.max-keys:500}") int maxKeys,
+            @Value("${cache.food.snapshot.enabled:true}") boolean enabled) {
+        this.foodRepository = foodRepository;
+        this.foodCache = foodCache;
+        this.snapshotPath = snapshotPath;
+        this.maxKeys = maxKeys;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warmUp();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.food.snapshot.interval-millis:300000}",
+            initialDelayString = "${cache.food.snapshot.interval-millis:300000}")
+    public void saveSnapshotPeriodically() {
+        if (enabled) {
+            saveSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void saveSnapshotOnShutdown() {
+        if (enabled) {
+            saveSnapshot();
+        }
+    }
+
+    @Override
+    public int saveSnapshot() {
+        List<Long> keys = foodCache.hottestKeys(maxKeys);
+        // Пустой кэш (например, сразу после старта без трафика) не затирает прошлый снимок
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        try {
+            KeySnapshotFile.write(snapshotPath, keys);
+            log.info("Saved {} hot food ids to {}", keys.size(), snapshotPath);
+            return keys.size();
+        } catch (IOException e) {
+            log.warn("Failed to save food cache snapshot to {}", snapshotPath, e);
+            return 0;
+        }
+    }
+
+    @Override
+    public int warmUp() {
+        long[] ids;
+        try {
+            ids = KeySnapshotFile.read(snapshotPath);
+        } catch (IOException e) {
+            // Битый снимок не должен мешать старту — просто начинаем с холодного кэша
+            log.warn("Ignoring unreadable food cache snapshot {}", snapshotPath, e);
+            return 0;
+        }
+        if (ids.length == 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        List<Long> hottest = Arrays.stream(ids).limit(maxKeys).boxed().toList();
+        // Свежие значения берём из базы: за время простоя цены и состав могли поменяться
+        Map<Long, FoodSnapshot> foods = foodRepository.findAllById(hottest).stream()
+                .map(FoodSnapshot::of)
+                .collect(Collectors.toMap(FoodSnapshot::getId, Function.identity(), (first, second) -> first));
+        // Кладём от холодных к горячим, чтобы самые горячие оказались самыми свежими
+        for (int i = hottest.size() - 1; i >= 0; i--) {
+            FoodSnapshot food = foods.get(hottest.get(i));
+            if (food != null) {
+                foodCache.put(food.getId(), food);
+            }
+        }
+        log.info("Warmed food cache with {} of {} ids in {} ms",
+                foods.size(), hottest.size(), (System.nanoTime() - start) / 1_000_000);
+        return foods.size();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.delivery.service.impl;
+
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.utils.CatalogVersion;
+import com.example.delivery.utils.CustomCache;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Чтение блюд по id, найденным поиском или индексом: общая часть {@link FoodServiceImpl}
+ * и {@link FoodSearchServiceImpl}. Блюда берутся из foodCache, id запросов — из foodSearchCache.
+ */
+@Component
+public class CachedFoodReader {
+    private final FoodRepository foodRepository;
+    private final CustomCache<Long, FoodSnapshot> foodCache;
+    private final CustomCache<String, long[]> foodSearchCache;
+    private final CatalogVersion catalogVersion;
+
+    @Autowired
+    public CachedFoodReader(
+            FoodRepository foodRepository,
+            CustomCache<Long, FoodSnapshot> foodCache,
+            CustomCache<String, long[]> foodSearchCache,
+            CatalogVersion catalogVersion) {
+        this.foodRepository = foodRepository;
+        this.foodCache = foodCache;
+        this.foodSearchCache = foodSearchCache;
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Поиск с кэшем «запрос -> id». Версия каталога входит в ключ, поэтому после
+     * любой записи старые результаты просто перестают находиться и вытесняются сами.
+     * Версию читаем до запроса: результат, посчитанный во время записи, сразу устареет.
+     */
+    public List<Food> search(String field, String query, Function<String, long[]> finder) {
+        // Поиск не зависит от регистра, так что и ключ можно нормализовать
+        String normalized = query.toLowerCase(Locale.ROOT);
+        String key = catalogVersion.current() + ":" + field + ":" + normalized;
+        long[] ids = foodSearchCache.get(key, k -> finder.apply(normalized));
+        return getFoodsByIds(ids);
+    }
+
+    // Блюда в порядке ids из foodCache; промахи догружаются одним запросом
+    public List<Food> getFoodsByIds(long[] ids) {
+        // Промахи догружаются одним findAllById; запись блюда во время загрузки отменяет её кэширование
+        Map<Long, FoodSnapshot> snapshots = foodCache.getAll(Arrays.stream(ids).boxed().toList(),
+                missing -> foodRepository.findAllById(missing).stream()
+                        .map(FoodSnapshot::of)
+                        .collect(Collectors.toMap(FoodSnapshot::getId, Function.identity(), (first, second) -> first)));
+        List<Food> foods = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            FoodSnapshot snapshot = snapshots.get(id);
+            // Блюдо могли удалить между поиском и догрузкой
+            if (snapshot != null) {
+                foods.add(snapshot.toFood());
+            }
+        }
+        return foods;
+    }
+}
@@ -1,52 +1,97 @@
 package com.example.delivery.service.impl;
 
+import com.example.delivery.aspects.CacheInvalidate;
+import com.example.delivery.aspects.CacheLookup;
 import com.example.delivery.exception.EntityNotFoundException;
+import com.example.delivery.exception.InvalidEntityException;
 import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.model.KeysetPage;
 import com.example.delivery.repository.CategoryRepository;
+import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.search.FoodIndex;
 import com.example.delivery.service.CategoryService;
 import java.util.List;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
+    private final FoodRepository foodRepository;
+    private final List<FoodIndex> foodIndexes;
 
     @Autowired
-    public CategoryServiceImpl(CategoryRepository categoryRepository) {
+    public CategoryServiceImpl(
+            CategoryRepository categoryRepository,
+            FoodRepository foodRepository,
+            List<FoodIndex> foodIndexes) {
         this.categoryRepository = categoryRepository;
+        this.foodRepository = foodRepository;
+        this.foodIndexes = foodIndexes;
     }
 
     @Override
+    @CacheLookup("categoryCache")
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
 
     @Override
+    public KeysetPage<Category> getCategoryPage(Long after, int limit) {
+        if (limit < 1 || limit > KeysetPage.MAX_LIMIT) {
+            throw new InvalidEntityException("Limit must be between 1 and " + KeysetPage.MAX_LIMIT);
+        }
+        List<Category> page = categoryRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(limit));
+        return KeysetPage.of(page, limit, Category::getId);
+    }
+
+    @Override
+    public Stream<Category> streamAllCategories() {
+        return categoryRepository.streamAll();
+    }
+
+    @Override
+    @CacheLookup(value = "categoryCache", notFound = "Category")
     public Category getCategoryById(Long id) {
         return categoryRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Category", id));
     }
 
     @Override
+    @CacheInvalidate({"categoryCache", "foodCache"})
     public Category saveCategory(Category category) {
         return categoryRepository.save(category);
     }
 
     @Override
+    @CacheInvalidate({"categoryCache", "foodCache"})
     public void deleteCategory(Long id) {
         if (!categoryRepository.existsById(id)) {
             throw new EntityNotFoundException("Category", id);
         }
+        // Блюда удаляются каскадом вместе с категорией — их надо убрать и из индексов
+        List<Long> foodIds = foodRepository.findIdsByCategoryId(id);
         categoryRepository.deleteById(id);
+        foodIds.forEach(foodId -> foodIndexes.forEach(index -> index.remove(foodId)));
     }
 
     @Override
+    @CacheInvalidate({"categoryCache", "foodCache"})
     public Category updateCategory(Long id, Category updatedCategory) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Category", id));
 
         category.setName(updatedCategory.getName());
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        // Название категории входит в снимки её блюд
+        for (Food food : foodRepository.findAllWithDetailsByCategoryId(id)) {
+            FoodSnapshot snapshot = FoodSnapshot.of(food);
+            foodIndexes.forEach(index -> index.index(snapshot));
+        }
+        return saved;
     }
 }
@@ -0,0 +1,95 @@
+package com.example.delivery.service.impl;
+
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodImportResult;
+import com.example.delivery.service.FoodImportService;
+import com.example.delivery.service.FoodService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * NDJSON-импорт блюд. Строки читаются и разбираются по одной, копятся в пачку по
+ * {@link FoodServiceImpl#BULK_CHUNK_SIZE} и сохраняются отдельной транзакцией; итоги
+ * пачки сразу уходят клиенту. В памяти не больше одной пачки, а плохая строка или
+ * откаченная пачка не отменяют уже сохранённое.
+ */
+@Service
+public class FoodImportServiceImpl implements FoodImportService {
+    private final FoodService foodService;
+    private final ObjectReader foodReader;
+    private final ObjectWriter resultWriter;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public FoodImportServiceImpl(FoodService foodService, ObjectMapper objectMapper, EntityManager entityManager) {
+        this.foodService = foodService;
+        this.foodReader = objectMapper.readerFor(Food.class);
+        // Сбрасываем ответ раз в пачку, а не после каждой строки
+        this.resultWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void importNdjson(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try (JsonGenerator generator = resultWriter.createGenerator(out)) {
+            Map<Long, Food> chunk = new LinkedHashMap<>();
+            List<FoodImportResult> malformed = new ArrayList<>();
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                // Каждая строка — свой парсер: битый JSON не сбивает разбор следующих строк
+                try {
+                    chunk.put(lineNumber, foodReader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    malformed.add(FoodImportResult.failed(lineNumber, "Malformed JSON: " + e.getOriginalMessage()));
+                }
+                // Битые строки тоже копятся до flush, поэтому считаем их в размер пачки
+                if (chunk.size() + malformed.size() == FoodServiceImpl.BULK_CHUNK_SIZE) {
+                    flush(chunk, malformed, generator);
+                    chunk = new LinkedHashMap<>();
+                    malformed = new ArrayList<>();
+                }
+            }
+            flush(chunk, malformed, generator);
+        }
+    }
+
+    private void flush(Map<Long, Food> chunk, List<FoodImportResult> malformed, JsonGenerator generator)
+            throws IOException {
+        List<FoodImportResult> results = new ArrayList<>(malformed);
+        if (!chunk.isEmpty()) {
+            results.addAll(foodService.importFoods(chunk));
+            // Сохранённые блюда больше не нужны; с open-in-view контекст иначе рос бы весь запрос
+            entityManager.clear();
+        }
+        results.sort(Comparator.comparingLong(FoodImportResult::line));
+        for (FoodImportResult result : results) {
+            resultWriter.writeValue(generator, result);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.delivery.service.impl;
+
+import com.example.delivery.exception.EntityNotFoundException;
+import com.example.delivery.exception.InvalidEntityException;
+import com.example.delivery.model.Food;
+import com.example.delivery.search.FacetIndex;
+import com.example.delivery.search.FacetPage;
+import com.example.delivery.search.FacetQuery;
+import com.example.delivery.search.FuzzyIndex;
+import com.example.delivery.search.IngredientIndex;
+import com.example.delivery.search.SimilarityIndex;
+import com.example.delivery.search.SuggestIndex;
+import com.example.delivery.search.Suggestion;
+import com.example.delivery.service.FoodSearchService;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Запросы, которые отвечаются из индексов каталога в памяти, без обращения к базе.
+ * Сами блюда по найденным id берутся из foodCache.
+ */
+@Service
+public class FoodSearchServiceImpl implements FoodSearchService {
+    private final FuzzyIndex fuzzyIndex;
+    private final IngredientIndex ingredientIndex;
+    private final FacetIndex facetIndex;
+    private final SimilarityIndex similarityIndex;
+    private final SuggestIndex suggestIndex;
+    private final CachedFoodReader cachedFoodReader;
+
+    @Autowired
+    public FoodSearchServiceImpl(
+            FuzzyIndex fuzzyIndex,
+            IngredientIndex ingredientIndex,
+            FacetIndex facetIndex,
+            SimilarityIndex similarityIndex,
+            SuggestIndex suggestIndex,
+            CachedFoodReader cachedFoodReader) {
+        this.fuzzyIndex = fuzzyIndex;
+        this.ingredientIndex = ingredientIndex;
+        this.facetIndex = facetIndex;
+        this.similarityIndex = similarityIndex;
+        this.suggestIndex = suggestIndex;
+        this.cachedFoodReader = cachedFoodReader;
+    }
+
+    @Override
+    public List<Food> searchFoodByNameFuzzy(String name, int limit) {
+        if (limit < 1 || limit > FuzzyIndex.MAX_LIMIT) {
+            throw new InvalidEntityException("Limit must be between 1 and " + FuzzyIndex.MAX_LIMIT);
+        }
+        // Порядок зависит и от популярности, её свежесть ограничена max-age кэша поиска
+        return cachedFoodReader.search("fuzzy:" + limit, name, query -> fuzzyIndex.search(query, limit));
+    }
+
+    @Override
+    public List<Food> filterFoodsByIngredients(List<Long> include, List<Long> exclude, int limit) {
+        if (limit < 1 || limit > IngredientIndex.MAX_LIMIT) {
+            throw new InvalidEntityException("Limit must be between 1 and " + IngredientIndex.MAX_LIMIT);
+        }
+        // Пересечение битовых карт дешевле поиска в кэше, так что foodSearchCache не нужен
+        return cachedFoodReader.getFoodsByIds(ingredientIndex.filter(include, exclude, limit));
+    }
+
+    @Override
+    public FacetPage browseFoods(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                 List<Long> include, List<Long> exclude, FacetQuery.Sort sort,
+                                 int page, int size) {
+        if (page < 0) {
+            throw new InvalidEntityException("Page must not be negative");
+        }
+        if (size < 1 || size > FacetIndex.MAX_PAGE_SIZE) {
+            throw new InvalidEntityException("Size must be between 1 and " + FacetIndex.MAX_PAGE_SIZE);
+        }
+        if ((long) page * size > FacetIndex.MAX_OFFSET) {
+            throw new InvalidEntityException("Page * size must not exceed " + FacetIndex.MAX_OFFSET);
+        }
+        checkPriceBound(minPrice);
+        checkPriceBound(maxPrice);
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new InvalidEntityException("Min price must not exceed max price");
+        }
+        // Границы в копейках округляем внутрь диапазона
+        FacetQuery query = new FacetQuery(
+                categoryId,
+                minPrice == null ? null : FacetIndex.toCents(minPrice, RoundingMode.CEILING),
+                maxPrice == null ? null : FacetIndex.toCents(maxPrice, RoundingMode.FLOOR),
+                include,
+                exclude,
+                sort,
+                page * size,
+                size);
+        FacetIndex.Result result = facetIndex.filter(query);
+        return new FacetPage(cachedFoodReader.getFoodsByIds(result.ids()), page, size, result.total());
+    }
+
+    private static void checkPriceBound(BigDecimal price) {
+        if (price != null && (price.signum() < 0 || price.compareTo(FacetIndex.MAX_PRICE) > 0)) {
+            throw new InvalidEntityException("Price must be between 0 and " + FacetIndex.MAX_PRICE);
+        }
+    }
+
+    @Override
+    public List<Food> getSimilarFoods(Long id, int k) {
+        if (k < 1 || k > SimilarityIndex.MAX_K) {
+            throw new InvalidEntityException("K must be between 1 and " + SimilarityIndex.MAX_K);
+        }
+        long[] ids = similarityIndex.similar(id, k);
+        if (ids == null) {
+            throw new EntityNotFoundException("Food", id);
+        }
+        return cachedFoodReader.getFoodsByIds(ids);
+    }
+
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (limit < 1 || limit > SuggestIndex.MAX_LIMIT) {
+            throw new InvalidEntityException("Limit must be between 1 and " + SuggestIndex.MAX_LIMIT);
+        }
+        // Пустой префикс — это весь каталог, подсказывать нечего
+        if (prefix.isBlank()) {
+            return List.of();
+        }
+        return suggestIndex.suggest(prefix, limit);
+    }
+}
@@ -3,100 +3,268 @@ package com.example.delivery.service.impl;
 import com.example.delivery.exception.DuplicateEntityException;
 import com.example.delivery.exception.EntityNotFoundException;
 import com.example.delivery.exception.InvalidEntityException;
+import com.example.delivery.model.Category;
 import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodImportResult;
+import com.example.delivery.model.FoodSnapshot;
 import com.example.delivery.model.Ingredient;
+import com.example.delivery.model.KeysetPage;
+import com.example.delivery.repository.CategoryRepository;
 import com.example.delivery.repository.FoodRepository;
 import com.example.delivery.repository.IngredientRepository;
+import com.example.delivery.search.FoodIndex;
+import com.example.delivery.search.TrigramIndex;
 import com.example.delivery.service.FoodService;
+import com.example.delivery.utils.AfterCommit;
+import com.example.delivery.utils.CatalogVersion;
 import com.example.delivery.utils.CustomCache;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 
 @Service
 public class FoodServiceImpl implements FoodService {
+    static final int BULK_CHUNK_SIZE = 500;
+
     private final FoodRepository foodRepository;
     private final IngredientRepository ingredientRepository;
-    private final CustomCache<Long, Food> foodCache;
+    private final CategoryRepository categoryRepository;
+    private final CustomCache<Long, FoodSnapshot> foodCache;
+    private final CatalogVersion catalogVersion;
+    private final TrigramIndex trigramIndex;
+    private final List<FoodIndex> foodIndexes;
+    private final CachedFoodReader cachedFoodReader;
 
     @Autowired
     public FoodServiceImpl(
             FoodRepository foodRepository,
             IngredientRepository ingredientRepository,
-            CustomCache<Long, Food> foodCache) {
+            CategoryRepository categoryRepository,
+            CustomCache<Long, FoodSnapshot> foodCache,
+            CatalogVersion catalogVersion,
+            TrigramIndex trigramIndex,
+            List<FoodIndex> foodIndexes,
+            CachedFoodReader cachedFoodReader) {
         this.foodRepository = foodRepository;
         this.ingredientRepository = ingredientRepository;
+        this.categoryRepository = categoryRepository;
         this.foodCache = foodCache;
+        this.catalogVersion = catalogVersion;
+        this.trigramIndex = trigramIndex;
+        this.foodIndexes = foodIndexes;
+        this.cachedFoodReader = cachedFoodReader;
     }
 
     @Override
     public List<Food> getAllFood() {
-        return foodRepository.findAll();
+        // Один запрос с категориями и составом вместо запроса на каждое блюдо
+        return foodRepository.findAllWithDetails();
     }
 
     @Override
-    public Food getFoodById(Long id) {
-        Food cached = foodCache.get(id);
-        if (cached != null) {
-            return cached;
+    public KeysetPage<Food> getFoodPage(Long after, int limit) {
+        if (limit < 1 || limit > KeysetPage.MAX_LIMIT) {
+            throw new InvalidEntityException("Limit must be between 1 and " + KeysetPage.MAX_LIMIT);
         }
+        // WHERE id > after идёт по первичному ключу, глубина страницы на цену не влияет
+        long[] ids = foodRepository.findIdsAfter(after == null ? 0L : after, Limit.of(limit)).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        // Курсор по id, а не по блюдам: удалённое между запросами блюдо не обрывает выдачу
+        Long next = ids.length < limit ? null : ids[ids.length - 1];
+        return new KeysetPage<>(cachedFoodReader.getFoodsByIds(ids), next);
+    }
+
+    @Override
+    public Stream<Food> streamAllFood() {
+        return foodRepository.streamAllWithDetails();
+    }
+
+    @Override
+    public Food getFoodById(Long id) {
+        // Одновременные промахи по одному id ждут одну загрузку из базы
+        FoodSnapshot food = foodCache.get(id, key -> foodRepository.findWithDetailsById(key)
+                .map(FoodSnapshot::of)
+                .orElse(null));
 
         // Если не найдено — выбрасываем исключение
-        return foodRepository.findById(id)
-                .map(food -> {
-                    foodCache.put(id, food);
-                    return food;
-                })
-                .orElseThrow(() -> new EntityNotFoundException("Food", id));
+        if (food == null) {
+            throw new EntityNotFoundException("Food", id);
+        }
+        return food.toFood();
     }
 
+    /**
+     * Импорт набором: имена проверяются одним запросом, категории и ингредиенты — одним IN
+     * каждые, а блюда сохраняются пачками по {@link #BULK_CHUNK_SIZE}, каждая в своей
+     * транзакции. Ошибка в данных, включая неизвестную категорию, отклоняет весь импорт
+     * до первой записи.
+     */
     @Override
     public List<Food> saveFoodsBulk(List<Food> foods) {
-        return foods.stream()
-                .peek(food -> {
-                    if (food.getName() == null || food.getName().trim().isEmpty()) {
-                        throw new InvalidEntityException("Food name must not be empty");
-                    }
-
-                    boolean exists = foodRepository.findByNameIgnoreCase(food.getName()).isPresent();
-                    if (exists) {
-                        throw new DuplicateEntityException("Food", "name", food.getName());
-                    }
-
-                    if (food.getIngredients() == null || food.getIngredients().isEmpty()) {
-                        throw new InvalidEntityException("Food must have at least one ingredient");
-                    }
-
-                    boolean hasNullIds = food.getIngredients().stream().anyMatch(i -> i.getId() == null);
-                    if (hasNullIds) {
-                        throw new InvalidEntityException("Each ingredient must have an ID");
-                    }
-                })
-                .map(food -> {
-                    List<Long> ingredientIds = food.getIngredients().stream()
-                            .map(Ingredient::getId)
-                            .toList();
-
-                    List<Ingredient> existingIngredients = ingredientRepository.findAllById(ingredientIds);
-                    food.setIngredients(existingIngredients);
-
-                    Food savedFood = foodRepository.save(food);
-
-                    if (savedFood.getIngredients() != null && !savedFood.getIngredients().isEmpty()) {
-                        savedFood.getIngredients().forEach(ingredient -> {
-                            if (!ingredient.getFoods().contains(savedFood)) {
-                                ingredient.getFoods().add(savedFood);
-                            }
-                        });
-                        ingredientRepository.saveAll(savedFood.getIngredients());
-                    }
-
-                    foodCache.put(savedFood.getId(), savedFood);
-                    return savedFood;
-                })
-                .collect(Collectors.toList());
+        Set<String> names = new HashSet<>();
+        for (Food food : foods) {
+            validateForImport(food);
+            // Дубликаты внутри самого импорта база бы не увидела
+            if (!names.add(food.getName().toLowerCase(Locale.ROOT))) {
+                throw new DuplicateEntityException("Food", "name", food.getName());
+            }
+        }
+        List<String> existingNames = foodRepository.findExistingNamesIgnoreCase(names);
+        if (!existingNames.isEmpty()) {
+            throw new DuplicateEntityException("Food", "name", existingNames.get(0));
+        }
+
+        Map<Long, Category> categories = findCategories(foods);
+        for (Food food : foods) {
+            Long categoryId = food.getCategory().getId();
+            if (!categories.containsKey(categoryId)) {
+                throw new EntityNotFoundException("Category", categoryId);
+            }
+            food.setCategory(categories.get(categoryId));
+        }
+        resolveIngredients(foods);
+        List<Food> savedFoods = new ArrayList<>(foods.size());
+        for (int from = 0; from < foods.size(); from += BULK_CHUNK_SIZE) {
+            savedFoods.addAll(saveChunk(foods.subList(from, Math.min(from + BULK_CHUNK_SIZE, foods.size()))));
+        }
+        return savedFoods;
+    }
+
+    /**
+     * Одна пачка NDJSON-импорта: строки с ошибками в данных, в том числе с неизвестной
+     * категорией, отклоняются поштучно, остальные сохраняются одной транзакцией. Если база
+     * откатила пачку, отказ получает каждая её строка.
+     */
+    @Override
+    public List<FoodImportResult> importFoods(Map<Long, Food> foodsByLine) {
+        List<FoodImportResult> results = new ArrayList<>(foodsByLine.size());
+        Map<String, Long> lineByName = new HashMap<>();
+        for (Map.Entry<Long, Food> row : foodsByLine.entrySet()) {
+            try {
+                validateForImport(row.getValue());
+                String name = row.getValue().getName();
+                if (lineByName.putIfAbsent(name.toLowerCase(Locale.ROOT), row.getKey()) != null) {
+                    throw new DuplicateEntityException("Food", "name", name);
+                }
+            } catch (InvalidEntityException | DuplicateEntityException e) {
+                results.add(FoodImportResult.failed(row.getKey(), e.getMessage()));
+            }
+        }
+        for (String existingName : foodRepository.findExistingNamesIgnoreCase(lineByName.keySet())) {
+            Long line = lineByName.remove(existingName.toLowerCase(Locale.ROOT));
+            if (line != null) {
+                String error = new DuplicateEntityException("Food", "name", existingName).getMessage();
+                results.add(FoodImportResult.failed(line, error));
+            }
+        }
+
+        // Неизвестная категория иначе упала бы на внешнем ключе и откатила всю пачку
+        Map<Long, Category> categories = findCategories(
+                lineByName.values().stream().map(foodsByLine::get).toList());
+        for (Iterator<Long> it = lineByName.values().iterator(); it.hasNext(); ) {
+            Long line = it.next();
+            Food food = foodsByLine.get(line);
+            Long categoryId = food.getCategory().getId();
+            if (categories.containsKey(categoryId)) {
+                food.setCategory(categories.get(categoryId));
+            } else {
+                String error = new EntityNotFoundException("Category", categoryId).getMessage();
+                results.add(FoodImportResult.failed(line, error));
+                it.remove();
+            }
+        }
+
+        List<Long> lines = lineByName.values().stream().sorted().toList();
+        List<Food> foods = lines.stream().map(foodsByLine::get).toList();
+        if (!foods.isEmpty()) {
+            resolveIngredients(foods);
+            try {
+                List<Food> savedFoods = saveChunk(foods);
+                for (int i = 0; i < lines.size(); i++) {
+                    results.add(FoodImportResult.created(lines.get(i), savedFoods.get(i).getId()));
+                }
+            } catch (DataAccessException e) {
+                String error = "Chunk rolled back: " + e.getMostSpecificCause().getMessage();
+                lines.forEach(line -> results.add(FoodImportResult.failed(line, error)));
+            }
+        }
+        results.sort(Comparator.comparingLong(FoodImportResult::line));
+        return results;
+    }
+
+    private static void validateForImport(Food food) {
+        if (food.getName() == null || food.getName().trim().isEmpty()) {
+            throw new InvalidEntityException("Food name must not be empty");
+        }
+        if (food.getCategory() == null || food.getCategory().getId() == null) {
+            throw new InvalidEntityException("Food must have a category ID");
+        }
+        if (food.getIngredients() == null || food.getIngredients().isEmpty()) {
+            throw new InvalidEntityException("Food must have at least one ingredient");
+        }
+        boolean hasNullIds = food.getIngredients().stream().anyMatch(i -> i.getId() == null);
+        if (hasNullIds) {
+            throw new InvalidEntityException("Each ingredient must have an ID");
+        }
+    }
+
+    // Категории всех блюд одним IN. Клиент присылает только id, а снимку для кэша и индексов
+    // нужно и название: без него подсказки потеряли бы категорию
+    private Map<Long, Category> findCategories(List<Food> foods) {
+        if (foods.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> categoryIds = foods.stream().map(food -> food.getCategory().getId()).collect(Collectors.toSet());
+        return categoryRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+    }
+
+    private Category resolveCategory(Category category) {
+        if (category == null || category.getId() == null) {
+            return category;
+        }
+        return categoryRepository.findById(category.getId())
+                .orElseThrow(() -> new EntityNotFoundException("Category", category.getId()));
+    }
+
+    // Ингредиенты всех блюд одним IN; несуществующие id молча пропускаются, как и раньше
+    private void resolveIngredients(List<Food> foods) {
+        Set<Long> ingredientIds = new HashSet<>();
+        foods.forEach(food -> food.getIngredients().forEach(ingredient -> ingredientIds.add(ingredient.getId())));
+        Map<Long, Ingredient> ingredients = ingredientRepository.findAllById(ingredientIds).stream()
+                .collect(Collectors.toMap(Ingredient::getId, Function.identity()));
+        for (Food food : foods) {
+            food.setIngredients(food.getIngredients().stream()
+                    .map(Ingredient::getId)
+                    .map(ingredients::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(LinkedHashSet::new)));
+        }
+    }
+
+    // saveAll транзакционный: одна транзакция и один flush на пачку, вставки уходят JDBC-батчами
+    private List<Food> saveChunk(List<Food> chunk) {
+        List<Food> savedFoods = foodRepository.saveAll(chunk);
+        savedFoods.forEach(this::afterWrite);
+        return savedFoods;
     }
 
     @Override
@@ -115,24 +283,16 @@ public class FoodServiceImpl implements FoodService {
                 .stream()
                 .map(Ingredient::getId)
                 .toList();
-        List<Ingredient> existingIngredients = ingredientRepository.findAllById(ingredientIds);
-        food.setIngredients(existingIngredients);
+        food.setIngredients(new LinkedHashSet<>(ingredientRepository.findAllById(ingredientIds)));
+        food.setCategory(resolveCategory(food.getCategory()));
+        // Связи пишет владеющая сторона Food.ingredients; ленивые Ingredient.foods не трогаем
         Food savedFood = foodRepository.save(food);
-
-        if (savedFood.getIngredients() != null && !savedFood.getIngredients().isEmpty()) {
-            savedFood.getIngredients().forEach(ingredient -> {
-                if (!ingredient.getFoods().contains(savedFood)) {
-                    ingredient.getFoods().add(savedFood);
-                }
-            });
-            ingredientRepository.saveAll(savedFood.getIngredients());
-        }
-
-        foodCache.put(savedFood.getId(), savedFood);
+        afterWrite(savedFood);
         return savedFood;
     }
 
     @Override
+    @Transactional
     public Food updateFood(Long id, Food updatedFood) {
         Food food = foodRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Food", id));
@@ -144,21 +304,25 @@ public class FoodServiceImpl implements FoodService {
             food.setPrice(updatedFood.getPrice());
         }
         if (updatedFood.getCategory() != null) {
-            food.setCategory(updatedFood.getCategory());
+            food.setCategory(resolveCategory(updatedFood.getCategory()));
         }
         if (updatedFood.getIngredients() != null) {
             List<Long> ingredientIds = updatedFood
                     .getIngredients().stream().map(Ingredient::getId).toList();
-            List<Ingredient> existingIngredients = ingredientRepository.findAllById(ingredientIds);
-            food.setIngredients(existingIngredients);
+            // Меняем загруженное множество на месте: новое множество Hibernate пересоздал бы целиком
+            Set<Ingredient> existingIngredients = new HashSet<>(ingredientRepository.findAllById(ingredientIds));
+            food.getIngredients().retainAll(existingIngredients);
+            food.getIngredients().addAll(existingIngredients);
         }
 
         Food updated = foodRepository.save(food);
-        foodCache.put(id, updated);
+        afterWrite(updated);
         return updated;
     }
 
+    // Одна строка food_ingredient на INSERT; уже добавленный ингредиент ничего не пишет
     @Override
+    @Transactional
     public Food addIngredientToFood(Long foodId, Long ingredientId) {
         Food food = foodRepository.findById(foodId)
                 .orElseThrow(() -> new EntityNotFoundException("Food", foodId));
@@ -167,7 +331,51 @@ public class FoodServiceImpl implements FoodService {
 
         food.getIngredients().add(ingredient);
         Food updatedFood = foodRepository.save(food);
-        foodCache.put(foodId, updatedFood);
+        afterWrite(updatedFood);
+        return updatedFood;
+    }
+
+    /**
+     * Состав блюда целиком за одну транзакцию: удаляются только лишние строки food_ingredient,
+     * вставляются только новые, а кэш и индексы обновляются один раз. Новые ингредиенты
+     * загружаются одним IN; если какого-то нет, состав не меняется.
+     */
+    @Override
+    @Transactional
+    public Food replaceIngredients(Long foodId, Set<Long> ingredientIds) {
+        if (ingredientIds.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidEntityException("Each ingredient must have an ID");
+        }
+        Food food = foodRepository.findById(foodId)
+                .orElseThrow(() -> new EntityNotFoundException("Food", foodId));
+
+        Set<Long> addedIds = new HashSet<>(ingredientIds);
+        food.getIngredients().forEach(ingredient -> addedIds.remove(ingredient.getId()));
+        List<Ingredient> added = addedIds.isEmpty() ? List.of() : ingredientRepository.findAllById(addedIds);
+        if (added.size() != addedIds.size()) {
+            added.forEach(ingredient -> addedIds.remove(ingredient.getId()));
+            throw new EntityNotFoundException("Ingredient", addedIds.iterator().next());
+        }
+
+        food.getIngredients().removeIf(ingredient -> !ingredientIds.contains(ingredient.getId()));
+        food.getIngredients().addAll(added);
+        Food updatedFood = foodRepository.save(food);
+        afterWrite(updatedFood);
+        return updatedFood;
+    }
+
+    // Одна строка food_ingredient на DELETE, остальной состав не трогаем
+    @Override
+    @Transactional
+    public Food removeIngredientFromFood(Long foodId, Long ingredientId) {
+        Food food = foodRepository.findById(foodId)
+                .orElseThrow(() -> new EntityNotFoundException("Food", foodId));
+
+        if (!food.getIngredients().removeIf(ingredient -> ingredient.getId().equals(ingredientId))) {
+            throw new EntityNotFoundException("Ingredient", ingredientId);
+        }
+        Food updatedFood = foodRepository.save(food);
+        afterWrite(updatedFood);
         return updatedFood;
     }
 
@@ -178,16 +386,33 @@ public class FoodServiceImpl implements FoodService {
         }
         foodRepository.deleteById(id);
         foodCache.remove(id);
+        foodIndexes.forEach(index -> index.remove(id));
+        catalogVersion.increment();
+    }
+
+    // После записи в базу: снимок в кэш, индексы в памяти и версия каталога. Снимок берём
+    // сейчас, пока сущность в контексте, а публикуем только после коммита
+    private void afterWrite(Food saved) {
+        FoodSnapshot snapshot = FoodSnapshot.of(saved);
+        AfterCommit.run(() -> {
+            foodCache.put(saved.getId(), snapshot);
+            foodIndexes.forEach(index -> index.index(snapshot));
+            catalogVersion.increment();
+        });
     }
 
     @Override
     public List<Food> searchFoodByName(String name) {
-        return foodRepository.findByNameContainingIgnoreCase(name);
+        // Индекс триграмм вместо LIKE '%name%' — скана таблицы больше нет
+        return cachedFoodReader.search("name", name, trigramIndex::search);
     }
 
     @Override
     public List<Food> searchFoodByCategoryName(String categoryName) {
-        return foodRepository.findByCategoryNameContainingIgnoreCase(categoryName);
+        return cachedFoodReader.search("category", categoryName, query -> foodRepository.findIdsByCategoryNameContainingIgnoreCase(query)
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray());
     }
 
     public void clearIngredientsFromFood(Long foodId) {
@@ -196,8 +421,7 @@ public class FoodServiceImpl implements FoodService {
 
         food.getIngredients().clear();
 
-        foodRepository.save(food);
-        foodCache.put(foodId, food); // если используешь кэш
+        afterWrite(foodRepository.save(food));
     }
 
 }
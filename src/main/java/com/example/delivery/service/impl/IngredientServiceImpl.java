@@ -1,15 +1,23 @@
 package com.example.delivery.service.impl;
 
+import com.example.delivery.aspects.CacheInvalidate;
+import com.example.delivery.aspects.CacheLookup;
 import com.example.delivery.exception.EntityNotFoundException;
-import com.example.delivery.model.Food;
+import com.example.delivery.exception.InvalidEntityException;
+import com.example.delivery.model.FoodSnapshot;
 import com.example.delivery.model.Ingredient;
-import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.model.KeysetPage;
 import com.example.delivery.repository.IngredientRepository;
+import com.example.delivery.search.FoodIndex;
 import com.example.delivery.service.IngredientService;
+import com.example.delivery.utils.AfterCommit;
+import com.example.delivery.utils.CustomCache;
 import jakarta.transaction.Transactional;
 import java.util.List;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 @Transactional
@@ -17,32 +25,54 @@ import org.springframework.stereotype.Service;
 @Service
 public class IngredientServiceImpl implements IngredientService {
     private final IngredientRepository ingredientRepository;
-    private final FoodRepository foodRepository;
+    private final CustomCache<Long, FoodSnapshot> foodCache;
+    private final List<FoodIndex> foodIndexes;
 
     @Autowired
     public IngredientServiceImpl(
-            IngredientRepository ingredientRepository, FoodRepository foodRepository) {
+            IngredientRepository ingredientRepository,
+            CustomCache<Long, FoodSnapshot> foodCache,
+            List<FoodIndex> foodIndexes) {
         this.ingredientRepository = ingredientRepository;
-        this.foodRepository = foodRepository;
+        this.foodCache = foodCache;
+        this.foodIndexes = foodIndexes;
     }
 
     @Override
+    @CacheLookup("ingredientCache")
     public List<Ingredient> getAllIngredients() {
         return ingredientRepository.findAll();
     }
 
     @Override
+    public KeysetPage<Ingredient> getIngredientPage(Long after, int limit) {
+        if (limit < 1 || limit > KeysetPage.MAX_LIMIT) {
+            throw new InvalidEntityException("Limit must be between 1 and " + KeysetPage.MAX_LIMIT);
+        }
+        List<Ingredient> page = ingredientRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(limit));
+        return KeysetPage.of(page, limit, Ingredient::getId);
+    }
+
+    @Override
+    public Stream<Ingredient> streamAllIngredients() {
+        return ingredientRepository.streamAll();
+    }
+
+    @Override
+    @CacheLookup(value = "ingredientCache", notFound = "Ingredient")
     public Ingredient getIngredientById(Long id) {
         return ingredientRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Ingredient", id));
     }
 
     @Override
+    @CacheInvalidate("ingredientCache")
     public Ingredient saveIngredient(Ingredient ingredient) {
         return ingredientRepository.save(ingredient);
     }
 
     @Override
+    @CacheInvalidate({"ingredientCache", "foodCache"})
     public Ingredient updateIngredient(Long id, Ingredient updatedIngredient) {
         Ingredient ingredient = ingredientRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Ingredient", id));
@@ -51,19 +81,21 @@ public class IngredientServiceImpl implements IngredientService {
     }
 
     @Override
+    @CacheInvalidate("ingredientCache")
     public void deleteIngredient(Long id) {
-        Ingredient ingredient = ingredientRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Ingredient", id));
-
-        // Убираем связи ингредиента с блюдами
-        for (Food food : ingredient.getFoods()) {
-            food.getIngredients().remove(ingredient);
+        // Три запроса при любом числе блюд: блюда ингредиента нужны только по id
+        List<Long> foodIds = ingredientRepository.findFoodIdsByIngredientId(id);
+        ingredientRepository.deleteFoodLinksByIngredientId(id);
+        if (ingredientRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException("Ingredient", id);
         }
 
-        // Сохраняем изменения перед удалением ингредиента
-        foodRepository.saveAll(ingredient.getFoods());
-
-        // Теперь можно удалить сам ингредиент
-        ingredientRepository.delete(ingredient);
+        // Из foodCache уходят только затронутые блюда, индексы правят состав у себя — после коммита,
+        // иначе блюдо перечитали бы в кэш со старым составом до того, как удаление стало видно
+        long[] ids = foodIds.stream().mapToLong(Long::longValue).toArray();
+        AfterCommit.run(() -> {
+            foodIds.forEach(foodCache::remove);
+            foodIndexes.forEach(index -> index.removeIngredient(id, ids));
+        });
     }
 }
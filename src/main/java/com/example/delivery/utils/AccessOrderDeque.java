@@ -0,0 +1,76 @@
+package com.example.delivery.utils;
+
+/**
+ * Двусвязный список узлов кэша в порядке доступа: голова — кандидат на вытеснение.
+ * Не потокобезопасен, все вызовы идут под блокировкой вытеснения {@link CustomCache}.
+ */
+final class AccessOrderDeque<K, V> {
+
+    private CustomCache.Node<K, V> head;
+    private CustomCache.Node<K, V> tail;
+    private int size;
+    // Читается без блокировки для статистики
+    private volatile long weight;
+
+    CustomCache.Node<K, V> first() {
+        return head;
+    }
+
+    CustomCache.Node<K, V> last() {
+        return tail;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long weight() {
+        return weight;
+    }
+
+    void addLast(CustomCache.Node<K, V> node) {
+        if (node.linked) {
+            return;
+        }
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        node.linked = true;
+        size++;
+        weight += node.weight;
+    }
+
+    void moveToLast(CustomCache.Node<K, V> node) {
+        if (!node.linked || node == tail) {
+            return;
+        }
+        unlink(node);
+        addLast(node);
+    }
+
+    void unlink(CustomCache.Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.linked = false;
+        size--;
+        weight -= node.weight;
+    }
+}
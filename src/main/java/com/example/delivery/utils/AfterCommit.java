@@ -0,0 +1,28 @@
+package com.example.delivery.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Обновление кэшей и индексов в памяти после записи. Внутри транзакции действие откладывается
+ * до коммита: иначе читатели увидели бы данные, которых в базе ещё нет, а откат оставил бы
+ * их в кэше. Без транзакции запись уже закоммичена, и действие выполняется сразу.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.delivery.utils;
+
+/**
+ * Неизменяемый снимок счётчиков {@link CustomCache}.
+ */
+public record CacheStats(
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long negativeHitCount,
+        long loadSuccessCount,
+        long loadFailureCount,
+        double averageLoadPenaltyMillis,
+        long sizeEvictionCount,
+        long expirationCount,
+        long explicitRemovalCount,
+        int size,
+        long weightedSize,
+        long maxWeight) {
+}
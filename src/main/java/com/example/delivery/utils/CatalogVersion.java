@@ -0,0 +1,22 @@
+package com.example.delivery.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Номер версии каталога (блюда, категории, ингредиенты). Каждая запись увеличивает его,
+ * поэтому всё, что было вычислено по старой версии, можно считать устаревшим без
+ * поштучной инвалидации: достаточно включить версию в ключ кэша.
+ */
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    // Вызывается после того, как запись уже видна в базе
+    public long increment() {
+        return version.incrementAndGet();
+    }
+}
@@ -1,61 +1,784 @@
 package com.example.delivery.utils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class CustomCache<K, V> {
 
-    private final Map<K, V> cache;
-    private final ScheduledExecutorService executor;
+    // Сколько просроченных записей снимается с головы очереди записи за одну запись или слив буфера
+    static final int EXPIRE_BATCH = 16;
+
+    // Один поток на все кэши (включая вложенные absentKeys): подбирает просроченное у кэшей,
+    // к которым давно не обращались. Обычно записи истекают по ходу чтений и записей
+    private static final ScheduledThreadPoolExecutor CLEANUP = createCleanupScheduler();
+
+    private final ConcurrentHashMap<K, Node<K, V>> cache;
+    // Идущие загрузки по ключу; put, remove и clear отменяют их запись в кэш
+    private final ConcurrentHashMap<K, Load<V>> inFlightLoads = new ConcurrentHashMap<>();
+    // null, если счётчики загрузок не включены в builder
+    private final ConcurrentHashMap<K, LongAdder> loadCounts;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // Сегменты и sketch меняются только под evictionLock
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> main = new AccessOrderDeque<>();
+    private final WriteOrderDeque<K, V> writeOrder = new WriteOrderDeque<>();
+    private final FrequencySketch<K> sketch;
+    private final ReadBuffer<Node<K, V>> readBuffer = new ReadBuffer<>();
+    private final StatsCounter stats = new StatsCounter();
+    // Ключи, для которых loader недавно вернул null (нет такой записи в базе)
+    private final CustomCache<K, Boolean> absentKeys;
+    private final ScheduledFuture<?> cleanupTask;
+    private final Executor refreshExecutor;
+    private final ThreadPoolExecutor ownedRefreshExecutor;
+    private final LongSupplier ticker;
+    private final EvictionPolicy evictionPolicy;
     private final long maxAgeInMillis;
-    private final int maxSize;
+    private final long maxAgeInNanos;
+    private final long refreshAfterWriteNanos;
+    private final Weigher<? super K, ? super V> weigher;
+    private final long maxWeight;
+    private final long windowMaxWeight;
 
 
     public CustomCache() {
-        this.maxAgeInMillis = 60000; // 60 секунд
-        this.maxSize = 1000;
-        this.cache = new LinkedHashMap<K, V>(maxSize, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-                boolean shouldRemove = size() > maxSize;
-                return shouldRemove;
+        this(60000, 1000); // 60 секунд
+    }
+
+    public CustomCache(long maxAgeInMillis, int maxSize) {
+        this(CustomCache.<K, V>builder().maxAgeInMillis(maxAgeInMillis).maxSize(maxSize));
+    }
+
+    private CustomCache(Builder<K, V> builder) {
+        this.maxAgeInMillis = builder.maxAgeInMillis;
+        this.maxAgeInNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxAgeInMillis);
+        this.refreshAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(builder.refreshAfterWriteMillis);
+        // Без weigher каждая запись весит 1, и maxWeight — это просто maxSize
+        this.weigher = builder.weigher != null ? builder.weigher : (key, value) -> 1;
+        this.maxWeight = builder.weigher != null ? builder.maxWeight : builder.maxSize;
+        this.ticker = builder.ticker;
+        this.evictionPolicy = builder.evictionPolicy;
+        int expectedEntries = builder.weigher != null ? 16 : builder.maxSize;
+        if (evictionPolicy == EvictionPolicy.TINY_LFU) {
+            this.windowMaxWeight = Math.max(1, maxWeight / 100);
+            this.sketch = new FrequencySketch<>(expectedEntries);
+        } else {
+            this.windowMaxWeight = 0;
+            this.sketch = null;
+        }
+        if (builder.refreshAfterWriteMillis <= 0) {
+            this.ownedRefreshExecutor = null;
+            this.refreshExecutor = null;
+        } else if (builder.refreshExecutor != null) {
+            this.ownedRefreshExecutor = null;
+            this.refreshExecutor = builder.refreshExecutor;
+        } else {
+            // Ограниченный пул: при переполнении очереди обновление просто откладывается
+            this.ownedRefreshExecutor = new ThreadPoolExecutor(
+                    1, 2, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(64), runnable -> {
+                        Thread thread = new Thread(runnable, "custom-cache-refresh");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.refreshExecutor = ownedRefreshExecutor;
+        }
+        this.absentKeys = builder.negativeMaxAgeInMillis <= 0 ? null
+                : CustomCache.<K, Boolean>builder()
+                        .maxSize(Math.max(expectedEntries, 1000))
+                        .maxAgeInMillis(builder.negativeMaxAgeInMillis)
+                        .ticker(ticker)
+                        .build();
+        this.cache = new ConcurrentHashMap<>(Math.min(expectedEntries, 1 << 16));
+        this.loadCounts = builder.recordLoadCounts ? new ConcurrentHashMap<>() : null;
+
+        // Одна периодическая задача на кэш вместо задачи на каждый put
+        long cleanupInterval = Math.max(maxAgeInMillis / 2, 1);
+        this.cleanupTask = CLEANUP.scheduleWithFixedDelay(
+                this::evictExpired, cleanupInterval, cleanupInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledThreadPoolExecutor createCleanupScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "custom-cache-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    public void put(K key, V value) {
+        cancelLoad(key);
+        write(key, value);
+    }
+
+    private void write(K key, V value) {
+        Node<K, V> node = newNode(key, value);
+        afterWrite(node, cache.put(key, node));
+        if (absentKeys != null) {
+            absentKeys.remove(key);
+        }
+    }
+
+    private Node<K, V> newNode(K key, V value) {
+        long now = ticker.getAsLong();
+        return new Node<>(key, value, weigher.weigh(key, value),
+                now + maxAgeInNanos, now + refreshAfterWriteNanos);
+    }
+
+    private void afterWrite(Node<K, V> node, Node<K, V> prior) {
+        K key = node.key;
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            expireEntries(ticker.getAsLong(), EXPIRE_BATCH);
+            if (sketch != null) {
+                sketch.ensureCapacity(cache.size());
+                sketch.increment(key);
+            }
+            // Обновлённая запись остаётся в своём сегменте, новая начинает с окна
+            boolean toMain = evictionPolicy == EvictionPolicy.LRU;
+            if (prior != null) {
+                toMain |= prior.linked && !prior.inWindow;
+                unlink(prior);
+            }
+            // Параллельный put/remove того же ключа мог уже заменить наш узел
+            if (cache.get(key) == node) {
+                node.inWindow = !toMain;
+                (toMain ? main : window).addLast(node);
+                writeOrder.addLast(node);
+            }
+            evictIfNeeded();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public V get(K key) {
+        Node<K, V> node = getNode(key, true);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Возвращает значение из кэша, а при промахе загружает его через {@code loader}.
+     * Для каждого ключа одновременно выполняется не больше одной загрузки: остальные
+     * потоки ждут тот же future. Если loader вернул null, в кэш ничего не кладётся.
+     * Если пока шла загрузка ключ записали, удалили или кэш очистили, результат отдаётся
+     * вызывающим, но в кэш не попадает: loader мог прочитать данные до этой записи.
+     * При включённом refreshAfterWrite устаревшая запись отдаётся сразу, а свежее
+     * значение загружается в фоне.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Node<K, V> node = getNode(key, true);
+        if (node != null) {
+            if (refreshExecutor != null && node.needsRefresh(ticker.getAsLong())) {
+                refreshAsync(node, loader);
+            }
+            return node.value;
+        }
+        if (absentKeys != null && absentKeys.get(key) != null) {
+            stats.recordNegativeHit();
+            return null;
+        }
+
+        Load<V> load = new Load<>();
+        Load<V> inFlight = inFlightLoads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight.future);
+        }
+        try {
+            // Пока мы дошли до putIfAbsent, предыдущая загрузка могла успеть завершиться
+            Node<K, V> loaded = getNode(key, false);
+            V value = loaded != null ? loaded.value : timedLoad(() -> loader.apply(key));
+            if (loaded == null) {
+                install(key, value, load);
+            }
+            load.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, load);
+        }
+    }
+
+    /**
+     * Пакетный {@link #get(Object, Function)}: промахи загружаются одним вызовом {@code loader},
+     * ключи, которые уже грузит другой поток, ждут его загрузку. Ключи, которых нет в ответе
+     * loader, считаются отсутствующими и в результат не попадают. Запись в кэш отменяется
+     * параллельными put, remove и clear так же, как у одиночной загрузки.
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys,
+                            Function<? super List<K>, ? extends Map<? extends K, ? extends V>> loader) {
+        Map<K, V> result = new HashMap<>();
+        Map<K, Load<V>> owned = new LinkedHashMap<>();
+        Map<K, Load<V>> awaited = new HashMap<>();
+        for (K key : keys) {
+            if (result.containsKey(key) || owned.containsKey(key) || awaited.containsKey(key)) {
+                continue;
             }
-        };
-        this.executor = Executors.newScheduledThreadPool(1);
+            Node<K, V> node = getNode(key, true);
+            if (node != null) {
+                result.put(key, node.value);
+            } else if (absentKeys != null && absentKeys.get(key) != null) {
+                stats.recordNegativeHit();
+            } else {
+                Load<V> load = new Load<>();
+                Load<V> inFlight = inFlightLoads.putIfAbsent(key, load);
+                if (inFlight != null) {
+                    awaited.put(key, inFlight);
+                } else {
+                    owned.put(key, load);
+                }
+            }
+        }
+        if (!owned.isEmpty()) {
+            try {
+                Map<? extends K, ? extends V> loaded = timedLoad(() -> loader.apply(new ArrayList<>(owned.keySet())));
+                owned.forEach((key, load) -> {
+                    V value = loaded.get(key);
+                    install(key, value, load);
+                    load.future.complete(value);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                });
+            } catch (RuntimeException | Error e) {
+                owned.values().forEach(load -> load.future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlightLoads::remove);
+            }
+        }
+        awaited.forEach((key, load) -> {
+            V value = await(load.future);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
     }
 
-    public synchronized void put(K key, V value) {
-        cache.put(key, value);
+    // Проверка отмены и запись идут под монитором загрузки: cancelLoad либо дождётся записи,
+    // и её сотрёт следующий за ним put или remove, либо запись увидит отмену и не случится
+    private void install(K key, V value, Load<V> load) {
+        synchronized (load) {
+            if (load.cancelled) {
+                return;
+            }
+            if (value != null) {
+                countLoad(key);
+                write(key, value);
+            } else if (absentKeys != null) {
+                absentKeys.put(key, Boolean.TRUE);
+            }
+        }
+    }
 
-        executor.schedule(() -> {
-            remove(key);
-        }, maxAgeInMillis, TimeUnit.MILLISECONDS);
+    private void cancelLoad(K key) {
+        Load<V> load = inFlightLoads.remove(key);
+        if (load != null) {
+            synchronized (load) {
+                load.cancelled = true;
+            }
+        }
     }
 
-    public synchronized V get(K key) {
-        V value = cache.get(key);
+    private <T> T timedLoad(Supplier<T> loader) {
+        long start = ticker.getAsLong();
+        T value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            stats.recordLoadFailure(ticker.getAsLong() - start);
+            throw e;
+        }
+        stats.recordLoadSuccess(ticker.getAsLong() - start);
         return value;
     }
 
-    public synchronized void remove(K key) {
-        V value = cache.remove(key);
-        if (value != null) {}
+    private void refreshAsync(Node<K, V> stale, Function<? super K, ? extends V> loader) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> refresh(stale, loader));
+        } catch (RejectedExecutionException e) {
+            // Пул обновлений занят — попробуем при следующем чтении
+            stale.refreshing.set(false);
+        }
+    }
+
+    private void refresh(Node<K, V> stale, Function<? super K, ? extends V> loader) {
+        K key = stale.key;
+        V value;
+        try {
+            value = timedLoad(() -> loader.apply(key));
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh cache entry {}: {}", key, e.getMessage());
+            stale.refreshing.set(false);
+            return;
+        }
+        if (value == null) {
+            if (cache.remove(key, stale)) {
+                unlinkLocked(stale);
+                recordRemoval(key, RemovalCause.EXPLICIT);
+            }
+            return;
+        }
+        // Запись могли перезаписать или удалить, пока шла загрузка — тогда результат не нужен
+        Node<K, V> node = newNode(key, value);
+        if (cache.replace(key, stale, node)) {
+            countLoad(key);
+            afterWrite(node, stale);
+        }
+    }
+
+    // Считаем только загрузки, давшие запись: промахи по несуществующим ключам не копят счётчики
+    private void countLoad(K key) {
+        if (loadCounts != null) {
+            loadCounts.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
+    }
+
+    public long loadCount(K key) {
+        LongAdder count = loadCounts == null ? null : loadCounts.get(key);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Сколько раз загружался каждый ключ, пока он лежит в кэше: счётчик сбрасывается, когда
+     * запись вытеснена, устарела или удалена. Пусто, если счётчики не включены в builder.
+     */
+    public Map<K, Long> loadCounts() {
+        Map<K, Long> snapshot = new HashMap<>();
+        if (loadCounts != null) {
+            loadCounts.forEach((key, count) -> snapshot.put(key, count.sum()));
+        }
+        return snapshot;
     }
 
-    public synchronized void clear() {
-        cache.clear();
+    public void remove(K key) {
+        cancelLoad(key);
+        if (absentKeys != null) {
+            absentKeys.remove(key);
+        }
+        Node<K, V> node = cache.remove(key);
+        if (node != null) {
+            unlinkLocked(node);
+            recordRemoval(key, RemovalCause.EXPLICIT);
+        }
     }
 
-    public synchronized int size() {
+    public void clear() {
+        // До evictionLock: install держит монитор загрузки и сам берёт evictionLock
+        inFlightLoads.keySet().forEach(this::cancelLoad);
+        evictionLock.lock();
+        try {
+            readBuffer.drainTo(node -> { });
+            for (AccessOrderDeque<K, V> deque : segments()) {
+                for (Node<K, V> node = deque.first(); node != null; node = deque.first()) {
+                    if (cache.remove(node.key, node)) {
+                        recordRemoval(node.key, RemovalCause.EXPLICIT);
+                    }
+                    unlink(node);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        if (absentKeys != null) {
+            absentKeys.clear();
+        }
+        if (loadCounts != null) {
+            loadCounts.clear();
+        }
+    }
+
+    public int size() {
         return cache.size();
     }
 
+    public long getMaxAgeInMillis() {
+        return maxAgeInMillis;
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Суммарный вес записей (для кэша без weigher совпадает с числом записей).
+     */
+    public long weightedSize() {
+        return window.weight() + main.weight();
+    }
+
+    /**
+     * До {@code limit} самых горячих живых ключей, начиная с самого горячего: для TinyLFU
+     * по оценке частоты, для LRU по давности доступа. Нужен, чтобы сохранить рабочий
+     * набор перед рестартом и прогреть кэш заново.
+     */
+    public List<K> hottestKeys(int limit) {
+        long now = ticker.getAsLong();
+        List<Node<K, V>> nodes = new ArrayList<>();
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            for (AccessOrderDeque<K, V> deque : List.of(main, window)) {
+                for (Node<K, V> node = deque.last(); node != null; node = node.prev) {
+                    if (!node.isExpired(now)) {
+                        nodes.add(node);
+                    }
+                }
+            }
+            if (sketch != null) {
+                // Сортировка стабильна: при равной частоте раньше идёт недавно прочитанный
+                Map<K, Integer> frequencies = new HashMap<>();
+                for (Node<K, V> node : nodes) {
+                    frequencies.put(node.key, sketch.frequency(node.key));
+                }
+                nodes.sort(Comparator.comparing((Node<K, V> node) -> frequencies.get(node.key)).reversed());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        List<K> keys = new ArrayList<>(Math.min(limit, nodes.size()));
+        for (int i = 0; i < nodes.size() && keys.size() < limit; i++) {
+            keys.add(nodes.get(i).key);
+        }
+        return keys;
+    }
+
+    /**
+     * Снимок статистики. Читает только счётчики и не берёт блокировку кэша.
+     */
+    public CacheStats stats() {
+        return stats.snapshot(size(), weightedSize(), maxWeight);
+    }
+
+    /**
+     * Снимает все просроченные записи пачками по {@link #EXPIRE_BATCH}, отпуская блокировку
+     * между пачками, так что запись и слив буфера не ждут обхода всего кэша.
+     */
+    void evictExpired() {
+        int expired;
+        do {
+            evictionLock.lock();
+            try {
+                drainReadBuffer();
+                expired = expireEntries(ticker.getAsLong(), EXPIRE_BATCH);
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (expired == EXPIRE_BATCH);
+    }
+
+    // Под evictionLock. Дальше первой живой записи смотреть не нужно: за ней только более свежие
+    private int expireEntries(long now, int limit) {
+        int expired = 0;
+        for (Node<K, V> node = writeOrder.first(); node != null && expired < limit && node.isExpired(now);
+                node = writeOrder.first()) {
+            if (cache.remove(node.key, node)) {
+                recordRemoval(node.key, RemovalCause.EXPIRED);
+            }
+            unlink(node);
+            expired++;
+        }
+        return expired;
+    }
+
+    // Задачи общего планировщика: по одной на живой кэш, от числа put не зависит
+    static int pendingMaintenanceTasks() {
+        return CLEANUP.getQueue().size();
+    }
+
     public void shutdown() {
-        executor.shutdown();
+        cleanupTask.cancel(false);
+        if (absentKeys != null) {
+            absentKeys.shutdown();
+        }
+        if (ownedRefreshExecutor != null) {
+            ownedRefreshExecutor.shutdown();
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private AccessOrderDeque<K, V>[] segments() {
+        return new AccessOrderDeque[] {window, main};
+    }
+
+    private Node<K, V> getNode(K key, boolean recordStats) {
+        Node<K, V> node = cache.get(key);
+        if (node == null) {
+            if (recordStats) {
+                stats.recordMiss();
+            }
+            return null;
+        }
+        if (node.isExpired(ticker.getAsLong())) {
+            if (cache.remove(key, node)) {
+                unlinkLocked(node);
+                recordRemoval(key, RemovalCause.EXPIRED);
+            }
+            if (recordStats) {
+                stats.recordMiss();
+            }
+            return null;
+        }
+        if (recordStats) {
+            stats.recordHit();
+        }
+        // Чтение не берёт блокировку: порядок доступа применяется пачкой при сливе буфера
+        if (readBuffer.offer(node)) {
+            tryDrainReadBuffer();
+        }
+        return node;
+    }
+
+    private void unlink(Node<K, V> node) {
+        (node.inWindow ? window : main).unlink(node);
+        writeOrder.unlink(node);
+    }
+
+    private void unlinkLocked(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void tryDrainReadBuffer() {
+        if (evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+                expireEntries(ticker.getAsLong(), EXPIRE_BATCH);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        readBuffer.drainTo(this::onAccess);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        if (sketch != null) {
+            sketch.increment(node.key);
+        }
+        (node.inWindow ? window : main).moveToLast(node);
+    }
+
+    private void evictIfNeeded() {
+        // Окно переполнено: его LRU-запись становится кандидатом в основной сегмент
+        long mainMaxWeight = maxWeight - windowMaxWeight;
+        while (window.weight() > windowMaxWeight) {
+            Node<K, V> candidate = window.first();
+            window.unlink(candidate);
+            candidate.inWindow = false;
+            main.addLast(candidate);
+            // Тяжёлому кандидату может понадобиться место нескольких жертв
+            while (main.weight() > mainMaxWeight && candidate.linked) {
+                Node<K, V> victim = main.first();
+                evict(admit(candidate, victim) ? victim : candidate);
+            }
+        }
+        while (main.weight() > mainMaxWeight) {
+            evict(main.first());
+        }
+    }
+
+    private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+        return candidate != victim && sketch.frequency(candidate.key) > sketch.frequency(victim.key);
+    }
+
+    private void evict(Node<K, V> node) {
+        if (cache.remove(node.key, node)) {
+            recordRemoval(node.key, RemovalCause.SIZE);
+        }
+        unlink(node);
+    }
+
+    // Счётчик загрузок уходит вместе с записью, поэтому их не больше, чем записей в кэше
+    private void recordRemoval(K key, RemovalCause cause) {
+        stats.recordRemoval(cause);
+        if (loadCounts != null) {
+            loadCounts.remove(key);
+        }
+    }
+
+    private static final class Load<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        // Меняется и читается под монитором самой загрузки
+        boolean cancelled;
+    }
+
+    static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        final long expiresAt;
+        final long refreshAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        // Поля сегментов и очереди записи, меняются только под evictionLock
+        Node<K, V> prev;
+        Node<K, V> next;
+        boolean linked;
+        boolean inWindow;
+        Node<K, V> writePrev;
+        Node<K, V> writeNext;
+        boolean inWriteOrder;
+
+        Node(K key, V value, int weight, long expiresAt, long refreshAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        boolean needsRefresh(long now) {
+            return now - refreshAt >= 0 && !refreshing.get();
+        }
+    }
+
+    public static final class Builder<K, V> {
+        private long maxAgeInMillis = 60000;
+        private long refreshAfterWriteMillis;
+        private long negativeMaxAgeInMillis;
+        private Executor refreshExecutor;
+        private int maxSize = 1000;
+        private long maxWeight;
+        private Weigher<? super K, ? super V> weigher;
+        private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+        private LongSupplier ticker = System::nanoTime;
+        private boolean recordLoadCounts;
+
+        private Builder() {
+        }
+
+        public Builder<K, V> maxAgeInMillis(long maxAgeInMillis) {
+            this.maxAgeInMillis = maxAgeInMillis;
+            return this;
+        }
+
+        /**
+         * Мягкий TTL: после него чтение через {@link CustomCache#get(Object, Function)}
+         * отдаёт старое значение и запускает одну фоновую перезагрузку. Должен быть меньше maxAge.
+         */
+        public Builder<K, V> refreshAfterWriteMillis(long refreshAfterWriteMillis) {
+            this.refreshAfterWriteMillis = refreshAfterWriteMillis;
+            return this;
+        }
+
+        /**
+         * Сколько помнить, что loader вернул null для ключа. Пока запись жива, повторные
+         * промахи по этому ключу не доходят до loader; put и remove её сбрасывают.
+         */
+        public Builder<K, V> negativeMaxAgeInMillis(long negativeMaxAgeInMillis) {
+            this.negativeMaxAgeInMillis = negativeMaxAgeInMillis;
+            return this;
+        }
+
+        public Builder<K, V> refreshExecutor(Executor refreshExecutor) {
+            this.refreshExecutor = refreshExecutor;
+            return this;
+        }
+
+        public Builder<K, V> maxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Ограничивает кэш суммарным весом записей вместо их количества; задаётся вместе с weigher.
+         */
+        public Builder<K, V> maxWeight(long maxWeight) {
+            this.maxWeight = maxWeight;
+            return this;
+        }
+
+        public Builder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
+        public Builder<K, V> evictionPolicy(EvictionPolicy evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+            return this;
+        }
+
+        /**
+         * Включает счётчики загрузок по ключам. Они живут, пока ключ в кэше, но для кэша
+         * с ключами из пользовательского ввода, как у поиска, всё равно не нужны.
+         */
+        public Builder<K, V> recordLoadCounts() {
+            this.recordLoadCounts = true;
+            return this;
+        }
+
+        Builder<K, V> ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public CustomCache<K, V> build() {
+            if ((weigher == null) != (maxWeight <= 0)) {
+                throw new IllegalStateException("maxWeight and weigher must be set together");
+            }
+            return new CustomCache<>(this);
+        }
     }
 }
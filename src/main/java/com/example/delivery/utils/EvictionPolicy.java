@@ -0,0 +1,11 @@
+package com.example.delivery.utils;
+
+public enum EvictionPolicy {
+    /** Чистый LRU: любая новая запись вытесняет самую давно использованную. */
+    LRU,
+    /**
+     * W-TinyLFU: новые записи попадают в маленькое окно LRU, а при выходе из него
+     * вытесняют жертву основного сегмента, только если встречались чаще неё.
+     */
+    TINY_LFU
+}
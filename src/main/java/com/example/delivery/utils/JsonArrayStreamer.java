@@ -0,0 +1,61 @@
+package com.example.delivery.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Ответ JSON-массивом, который пишется по мере чтения из репозиторного {@link Stream}.
+ * Поток читается в read-only транзакции (без неё Postgres не включит курсор и вычитает
+ * fetch size в память целиком), каждая записанная сущность сразу отцепляется от
+ * контекста персистентности. Так память не зависит от размера выгрузки.
+ */
+@Component
+public class JsonArrayStreamer {
+
+    private final ObjectWriter writer;
+    private final TransactionTemplate readOnlyTransaction;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public JsonArrayStreamer(
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            EntityManager entityManager) {
+        // Сбрасываем буфер генератора по заполнению, а не после каждого элемента
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.entityManager = entityManager;
+    }
+
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> source) {
+        return out -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> stream = source.get();
+                 JsonGenerator generator = writer.createGenerator(out)) {
+                generator.writeStartArray();
+                Iterator<T> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    T item = iterator.next();
+                    writer.writeValue(generator, item);
+                    entityManager.detach(item);
+                }
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.delivery.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Бинарный снимок ключей кэша: заголовок (магическое число, версия, количество)
+ * и дальше подряд long-ключи. Пишется во временный файл и атомарно переименовывается,
+ * поэтому упавший посреди записи процесс не оставляет битый снимок. Читается через mmap.
+ */
+public final class KeySnapshotFile {
+
+    private static final int MAGIC = 0x46435331; // "FCS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    private KeySnapshotFile() {
+    }
+
+    public static void write(Path path, List<Long> keys) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + keys.size() * Long.BYTES);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(keys.size());
+            for (Long key : keys) {
+                buffer.putLong(key);
+            }
+            buffer.flip();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Ключи из снимка в том порядке, в котором их записали. Пустой массив, если файла нет.
+     *
+     * @throws IOException если файл не является снимком или обрезан
+     */
+    public static long[] read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new long[0];
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+                throw new IOException("Snapshot " + path + " has unknown format");
+            }
+            int count = mapped.getInt();
+            if (count < 0 || fileSize != HEADER_BYTES + (long) count * Long.BYTES) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            long[] keys = new long[count];
+            LongBuffer longs = mapped.asLongBuffer();
+            longs.get(keys);
+            return keys;
+        }
+    }
+}
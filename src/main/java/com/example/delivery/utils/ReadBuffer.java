@@ -0,0 +1,64 @@
+package com.example.delivery.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Полосатый буфер чтений с потерями, как read buffer в Caffeine.
+ * Потоки пишут в свою полосу без блокировок; если полоса заполнена, событие отбрасывается —
+ * для приблизительного LRU это допустимо. Сливается только владельцем блокировки вытеснения.
+ */
+final class ReadBuffer<E> {
+
+    static final int STRIPE_CAPACITY = 16;
+
+    private final AtomicReferenceArray<E>[] slots;
+    private final AtomicInteger[] writeIndexes;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    ReadBuffer() {
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        this.slots = new AtomicReferenceArray[stripes];
+        this.writeIndexes = new AtomicInteger[stripes];
+        for (int i = 0; i < stripes; i++) {
+            slots[i] = new AtomicReferenceArray<>(STRIPE_CAPACITY);
+            writeIndexes[i] = new AtomicInteger();
+        }
+        this.mask = stripes - 1;
+    }
+
+    /**
+     * Записывает событие чтения.
+     *
+     * @return true, если полоса заполнилась и буфер пора слить
+     */
+    boolean offer(E element) {
+        int stripe = stripeIndex();
+        int index = writeIndexes[stripe].getAndIncrement();
+        if (index < STRIPE_CAPACITY) {
+            slots[stripe].lazySet(index, element);
+        }
+        return index >= STRIPE_CAPACITY - 1;
+    }
+
+    void drainTo(Consumer<E> consumer) {
+        for (int stripe = 0; stripe < slots.length; stripe++) {
+            int count = Math.min(writeIndexes[stripe].get(), STRIPE_CAPACITY);
+            for (int i = 0; i < count; i++) {
+                E element = slots[stripe].getAndSet(i, null);
+                if (element != null) {
+                    consumer.accept(element);
+                }
+            }
+            writeIndexes[stripe].set(0);
+        }
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.delivery.utils;
+
+public enum RemovalCause {
+    /** Вытеснена, чтобы кэш уложился в maxSize. */
+    SIZE,
+    /** Истёк срок жизни записи. */
+    EXPIRED,
+    /** Удалена явно через remove() или clear(). */
+    EXPLICIT
+}
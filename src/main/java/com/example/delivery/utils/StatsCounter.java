@@ -0,0 +1,72 @@
+package com.example.delivery.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики кэша на LongAdder: запись из горячего пути не конкурирует за одну ячейку,
+ * а снимок собирается без блокировки кэша.
+ */
+final class StatsCounter {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder negativeHitCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder sizeEvictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+    private final LongAdder explicitRemovalCount = new LongAdder();
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    void recordNegativeHit() {
+        negativeHitCount.increment();
+    }
+
+    void recordLoadSuccess(long loadTimeNanos) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    void recordLoadFailure(long loadTimeNanos) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    void recordRemoval(RemovalCause cause) {
+        switch (cause) {
+            case SIZE -> sizeEvictionCount.increment();
+            case EXPIRED -> expirationCount.increment();
+            case EXPLICIT -> explicitRemovalCount.increment();
+        }
+    }
+
+    CacheStats snapshot(int size, long weightedSize, long maxWeight) {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        long loadSuccesses = loadSuccessCount.sum();
+        long loadFailures = loadFailureCount.sum();
+        long loads = loadSuccesses + loadFailures;
+        return new CacheStats(
+                hits,
+                misses,
+                hits + misses == 0 ? 1.0 : (double) hits / (hits + misses),
+                negativeHitCount.sum(),
+                loadSuccesses,
+                loadFailures,
+                loads == 0 ? 0.0 : totalLoadTime.sum() / 1_000_000.0 / loads,
+                sizeEvictionCount.sum(),
+                expirationCount.sum(),
+                explicitRemovalCount.sum(),
+                size,
+                weightedSize,
+                maxWeight);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.delivery.utils;
+
+/**
+ * Оценивает «вес» записи кэша, например её примерный размер в байтах.
+ * Вызывается один раз при записи; вес должен быть неотрицательным.
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    int weigh(K key, V value);
+}
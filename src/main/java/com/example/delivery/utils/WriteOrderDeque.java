@@ -0,0 +1,50 @@
+package com.example.delivery.utils;
+
+/**
+ * Двусвязный список узлов кэша в порядке записи. У всех записей один TTL, поэтому это и
+ * порядок истечения: просроченные всегда в голове. Не потокобезопасен, все вызовы идут под
+ * блокировкой вытеснения {@link CustomCache}.
+ */
+final class WriteOrderDeque<K, V> {
+
+    private CustomCache.Node<K, V> head;
+    private CustomCache.Node<K, V> tail;
+
+    CustomCache.Node<K, V> first() {
+        return head;
+    }
+
+    void addLast(CustomCache.Node<K, V> node) {
+        if (node.inWriteOrder) {
+            return;
+        }
+        node.writePrev = tail;
+        node.writeNext = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.writeNext = node;
+        }
+        tail = node;
+        node.inWriteOrder = true;
+    }
+
+    void unlink(CustomCache.Node<K, V> node) {
+        if (!node.inWriteOrder) {
+            return;
+        }
+        if (node.writePrev == null) {
+            head = node.writeNext;
+        } else {
+            node.writePrev.writeNext = node.writeNext;
+        }
+        if (node.writeNext == null) {
+            tail = node.writePrev;
+        } else {
+            node.writeNext.writePrev = node.writePrev;
+        }
+        node.writePrev = null;
+        node.writeNext = null;
+        node.inWriteOrder = false;
+    }
+}
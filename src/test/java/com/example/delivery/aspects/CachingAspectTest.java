@@ -0,0 +1,137 @@
+package com.example.delivery.aspects;
+
+import com.example.delivery.exception.EntityNotFoundException;
+import com.example.delivery.model.Category;
+import com.example.delivery.repository.CategoryRepository;
+import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.service.CategoryService;
+import com.example.delivery.service.impl.CategoryServiceImpl;
+import com.example.delivery.utils.CatalogVersion;
+import com.example.delivery.utils.CustomCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAspectTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private FoodRepository foodRepository;
+
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+
+    private CustomCache<Object, Object> categoryCache;
+    private CustomCache<Object, Object> foodCache;
+    private CategoryService categoryService;
+
+    @BeforeEach
+    void setUp() {
+        categoryCache = CustomCache.builder()
+                .maxSize(100)
+                .maxAgeInMillis(60000)
+                .negativeMaxAgeInMillis(60000)
+                .build();
+        foodCache = new CustomCache<>(60000, 100);
+        AspectJProxyFactory factory = new AspectJProxyFactory(
+                new CategoryServiceImpl(categoryRepository, foodRepository, List.of()));
+        factory.addAspect(new CachingAspect(
+                Map.of("categoryCache", categoryCache, "foodCache", foodCache), catalogVersion));
+        categoryService = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryCache.shutdown();
+        foodCache.shutdown();
+    }
+
+    @Test
+    void lookup_shouldServeRepeatedReadsFromCache() {
+        Category category = new Category(1L, "Drinks", null);
+        when(categoryRepository.findAll()).thenReturn(List.of(category));
+        when(categoryRepository.findById(1L)).thenReturn(Optional.of(category));
+
+        categoryService.getAllCategories();
+        categoryService.getCategoryById(1L);
+        List<Category> categories = categoryService.getAllCategories();
+
+        assertThat(categoryService.getCategoryById(1L)).isEqualTo(category);
+        assertThat(categories).containsExactly(category);
+        assertThatThrownBy(() -> categories.add(category)).isInstanceOf(UnsupportedOperationException.class);
+        verify(categoryRepository, times(1)).findAll();
+        verify(categoryRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void lookup_shouldReturnDetachedCopies() {
+        Category category = new Category(1L, "Drinks", List.of());
+        when(categoryRepository.findById(1L)).thenReturn(Optional.of(category));
+
+        Category first = categoryService.getCategoryById(1L);
+        first.setName("Juices");
+        Category second = categoryService.getCategoryById(1L);
+
+        assertThat(first).isNotSameAs(category);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getName()).isEqualTo("Drinks");
+        assertThat(second.getFoods()).isNull();
+        verify(categoryRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void lookup_shouldRememberMissingIds() {
+        when(categoryRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> categoryService.getCategoryById(2L))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessage("Category with id 2 not found");
+        assertThatThrownBy(() -> categoryService.getCategoryById(2L))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessage("Category with id 2 not found");
+
+        verify(categoryRepository, times(1)).findById(2L);
+    }
+
+    @Test
+    void invalidate_shouldForgetMissingIds() {
+        Category category = new Category(2L, "Soups", null);
+        when(categoryRepository.findById(2L)).thenReturn(Optional.empty(), Optional.of(category));
+        when(categoryRepository.save(category)).thenReturn(category);
+
+        assertThatThrownBy(() -> categoryService.getCategoryById(2L)).isInstanceOf(EntityNotFoundException.class);
+        categoryService.saveCategory(category);
+
+        assertThat(categoryService.getCategoryById(2L)).isEqualTo(category);
+        verify(categoryRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void invalidate_shouldClearListedCachesAfterWrite() {
+        Category category = new Category(1L, "Drinks", null);
+        when(categoryRepository.findAll()).thenReturn(List.of(category));
+        when(categoryRepository.save(category)).thenReturn(category);
+        foodCache.put(10L, "Lemonade");
+
+        categoryService.getAllCategories();
+        categoryService.saveCategory(category);
+        categoryService.getAllCategories();
+
+        verify(categoryRepository, times(2)).findAll();
+        assertThat(foodCache.get(10L)).isNull();
+        assertThat(catalogVersion.current()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.delivery.repository;
+
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.search.TrigramIndex;
+import com.example.delivery.service.impl.CachedFoodReader;
+import com.example.delivery.service.impl.FoodServiceImpl;
+import com.example.delivery.utils.CatalogVersion;
+import com.example.delivery.utils.CustomCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Общая основа тестов на H2, которые считают SQL-запросы: статистика Hibernate, репозитории
+ * и FoodServiceImpl, собранный вручную поверх них. Данные каждый тест засевает сам.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+abstract class CatalogJpaTest {
+
+    @Autowired
+    protected TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    protected FoodRepository foodRepository;
+
+    @Autowired
+    protected IngredientRepository ingredientRepository;
+
+    @Autowired
+    protected CategoryRepository categoryRepository;
+
+    protected final CatalogVersion catalogVersion = new CatalogVersion();
+    protected Statistics statistics;
+
+    @BeforeEach
+    void setUpStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Иначе всё уже лежит в контексте персистентности и запросов не будет вовсе
+    protected void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Тестовая транзакция откатывается, поэтому отложенное до коммита вызываем сами
+    protected void runAfterCommit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+
+    // Каждый вызов — сервис с пустыми кэшами и переданным триграммным индексом
+    protected FoodServiceImpl foodService(TrigramIndex trigramIndex) {
+        CustomCache<Long, FoodSnapshot> foodCache = new CustomCache<>(60000, 1000);
+        return new FoodServiceImpl(foodRepository, ingredientRepository, categoryRepository,
+                foodCache, catalogVersion, trigramIndex, List.of(),
+                new CachedFoodReader(foodRepository, foodCache, new CustomCache<>(60000, 1000), catalogVersion));
+    }
+
+    protected FoodServiceImpl foodService() {
+        return foodService(new TrigramIndex());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.delivery.repository;
+
+import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.Ingredient;
+import com.example.delivery.service.impl.FoodServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Bulk-импорт блюд на H2: id из пула food_seq и вставки JDBC-батчами, так что число
+ * SQL-запросов растёт с числом пачек по 50 строк, а не с числом блюд.
+ */
+class FoodBulkInsertTest extends CatalogJpaTest {
+
+    private static final int FOODS = 200;
+
+    private FoodServiceImpl foodService;
+    private Category category;
+    private final List<Ingredient> ingredients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        category = entityManager.persist(Category.builder().name("Pizza").build());
+        for (int i = 0; i < 10; i++) {
+            ingredients.add(entityManager.persist(Ingredient.builder().name("Ingredient " + i).build()));
+        }
+        flushAndClear();
+        foodService = foodService();
+    }
+
+    private List<Food> foods(String prefix) {
+        List<Food> foods = new ArrayList<>();
+        for (int i = 0; i < FOODS; i++) {
+            foods.add(Food.builder()
+                    .name(prefix + " " + i)
+                    .price(BigDecimal.TEN)
+                    .category(Category.builder().id(category.getId()).build())
+                    .ingredients(Set.of(
+                            Ingredient.builder().id(ingredients.get(i % 10).getId()).build(),
+                            Ingredient.builder().id(ingredients.get((i + 1) % 10).getId()).build(),
+                            Ingredient.builder().id(ingredients.get((i + 2) % 10).getId()).build()))
+                    .build());
+        }
+        return foods;
+    }
+
+    @Test
+    void saveFoodsBulk_shouldBatchInserts() {
+        statistics.clear();
+
+        List<Food> saved = foodService.saveFoodsBulk(foods("Margherita"));
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(FOODS);
+        // имена, ингредиенты, food_seq, пачки food и food_ingredient — но не запрос на блюдо
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(FOODS / 10);
+        assertThat(saved).extracting(Food::getId).doesNotContainNull().doesNotHaveDuplicates();
+        entityManager.clear();
+        assertThat(foodRepository.findAllWithDetails())
+                .hasSize(FOODS)
+                .allSatisfy(food -> assertThat(food.getIngredients()).hasSize(3));
+    }
+
+    @Test
+    void saveFoodsBulk_shouldRejectExistingNameBeforeWriting() {
+        foodService.saveFoodsBulk(foods("Margherita").subList(0, 1));
+        flushAndClear();
+        statistics.clear();
+
+        assertThatThrownBy(() -> foodService.saveFoodsBulk(foods("MARGHERITA")))
+                .hasMessageContaining("Margherita 0");
+        assertThat(statistics.getEntityInsertCount()).isZero();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.delivery.repository;
+
+import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.model.Ingredient;
+import com.example.delivery.model.KeysetPage;
+import com.example.delivery.search.TrigramIndex;
+import com.example.delivery.service.impl.FoodServiceImpl;
+import com.example.delivery.utils.JsonArrayStreamer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Число SQL-запросов на списочных эндпоинтах блюд (H2 вместо Postgres). Каждый список
+ * обходится целиком, как при сериализации в JSON, и число запросов не должно зависеть
+ * от числа блюд.
+ */
+class FoodFetchPlanTest extends CatalogJpaTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private FoodServiceImpl foodService;
+    private final List<Category> categories = new ArrayList<>();
+    private final List<Ingredient> ingredients = new ArrayList<>();
+    private int foodCount;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("Pizza", "Soups", "Fast Food")) {
+            categories.add(entityManager.persist(Category.builder().name(name).build()));
+        }
+        for (int i = 0; i < 10; i++) {
+            ingredients.add(entityManager.persist(Ingredient.builder().name("Ingredient " + i).build()));
+        }
+        addFoods(5);
+    }
+
+    private void addFoods(int count) {
+        for (int i = 0; i < count; i++) {
+            int n = foodCount++;
+            entityManager.persist(Food.builder()
+                    .name("Pizza " + n)
+                    .price(BigDecimal.valueOf(5 + n))
+                    .category(categories.get(n % categories.size()))
+                    .ingredients(new LinkedHashSet<>(List.of(
+                            ingredients.get(n % ingredients.size()),
+                            ingredients.get((n + 3) % ingredients.size()))))
+                    .build());
+        }
+        flushAndClear();
+        trigramIndex.rebuild(foodRepository.findAllWithDetails().stream().map(FoodSnapshot::of).toList());
+        entityManager.clear();
+        foodService = foodService(trigramIndex);
+    }
+
+    // Запросы на вызов вместе с обходом всех связей результата
+    private long statements(Supplier<List<Food>> call) {
+        statistics.clear();
+        List<Food> foods = call.get();
+        for (Food food : foods) {
+            assertThat(food.getCategory().getName()).isNotNull();
+            food.getIngredients().forEach(ingredient -> assertThat(ingredient.getName()).isNotNull());
+        }
+        assertThat(foods).isNotEmpty();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void getAllFood_shouldRunOneStatementRegardlessOfSize() {
+        assertThat(statements(foodService::getAllFood)).isEqualTo(1);
+
+        addFoods(40);
+        assertThat(statements(foodService::getAllFood)).isEqualTo(1);
+    }
+
+    @Test
+    void searchFoodByName_shouldRunOneStatementRegardlessOfSize() {
+        assertThat(statements(() -> foodService.searchFoodByName("pizza"))).isEqualTo(1);
+
+        addFoods(40);
+        assertThat(statements(() -> foodService.searchFoodByName("pizza"))).isEqualTo(1);
+        // Повтор целиком из foodSearchCache и foodCache
+        assertThat(statements(() -> foodService.searchFoodByName("pizza"))).isZero();
+    }
+
+    @Test
+    void searchFoodByCategoryName_shouldRunTwoStatementsRegardlessOfSize() {
+        // id по категории и сами блюда с деталями
+        assertThat(statements(() -> foodService.searchFoodByCategoryName("pi"))).isEqualTo(2);
+
+        addFoods(40);
+        assertThat(statements(() -> foodService.searchFoodByCategoryName("o"))).isEqualTo(2);
+    }
+
+    @Test
+    void findByNameContainingIgnoreCase_shouldFetchDetailsInSameStatement() {
+        addFoods(40);
+
+        assertThat(statements(() -> foodRepository.findByNameContainingIgnoreCase("pizza"))).isEqualTo(1);
+    }
+
+    @Test
+    void getFoodPage_shouldWalkCatalogByCursor() {
+        addFoods(40);
+
+        List<Long> seen = new ArrayList<>();
+        Long after = null;
+        do {
+            statistics.clear();
+            KeysetPage<Food> page = foodService.getFoodPage(after, 10);
+            // id страницы и сами блюда с деталями
+            assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+            page.content().forEach(food -> seen.add(food.getId()));
+            after = page.next();
+        } while (after != null);
+
+        assertThat(seen).hasSize(foodCount).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void streamAllWithDetails_shouldRunOneStatementWithoutDuplicates() {
+        addFoods(40);
+        statistics.clear();
+
+        List<Food> foods;
+        try (Stream<Food> stream = foodRepository.streamAllWithDetails()) {
+            foods = stream.toList();
+        }
+
+        assertThat(foods).hasSize(foodCount).extracting(Food::getId).isSorted().doesNotHaveDuplicates();
+        assertThat(foods).allSatisfy(food -> assertThat(food.getIngredients()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void jsonArrayStreamer_shouldWriteWholeCatalogAndDetachWrittenFoods() throws Exception {
+        addFoods(40);
+        List<Food> written = new ArrayList<>();
+        JsonArrayStreamer streamer = new JsonArrayStreamer(
+                new ObjectMapper(), transactionManager, entityManager.getEntityManager());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        streamer.stream(() -> foodRepository.streamAllWithDetails().peek(written::add)).writeTo(out);
+
+        JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        assertThat(json.size()).isEqualTo(foodCount);
+        assertThat(json.get(0).get("ingredients").size()).isEqualTo(2);
+        assertThat(json.get(0).get("category").get("name").asText()).isNotBlank();
+        // Контекст персистентности не растёт вместе с выгрузкой
+        assertThat(written).noneMatch(entityManager.getEntityManager()::contains);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.delivery.repository;
+
+import com.example.delivery.exception.EntityNotFoundException;
+import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.Ingredient;
+import com.example.delivery.service.impl.FoodServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Изменение состава блюда на H2: добавление и удаление одного ингредиента пишут одну строку
+ * food_ingredient, замена состава — только разницу; весь состав не переписывается. Батчи JDBC
+ * выключены, чтобы каждая вставка считалась отдельным запросом.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=1")
+class FoodIngredientWriteTest extends CatalogJpaTest {
+
+    private static final int INGREDIENTS = 30;
+
+    private FoodServiceImpl foodService;
+    private final List<Ingredient> ingredients = new ArrayList<>();
+    private Ingredient extra;
+    private Food food;
+
+    @BeforeEach
+    void setUp() {
+        Category category = entityManager.persist(Category.builder().name("Salads").build());
+        for (int i = 0; i < INGREDIENTS; i++) {
+            ingredients.add(entityManager.persist(Ingredient.builder().name("Ingredient " + i).build()));
+        }
+        extra = entityManager.persist(Ingredient.builder().name("Olives").build());
+        food = entityManager.persist(Food.builder()
+                .name("Big salad")
+                .price(BigDecimal.TEN)
+                .category(category)
+                .ingredients(new LinkedHashSet<>(ingredients))
+                .build());
+        flushAndClear();
+        foodService = foodService();
+    }
+
+    @Test
+    void addIngredientToFood_shouldInsertSingleRow() {
+        statistics.clear();
+
+        foodService.addIngredientToFood(food.getId(), extra.getId());
+        entityManager.flush();
+
+        // Блюдо, ингредиент, текущий состав и один INSERT; мешок дал бы ещё DELETE и 31 INSERT
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        assertThat(statistics.getCollectionRemoveCount()).isZero();
+        entityManager.clear();
+        assertThat(foodRepository.findById(food.getId()).orElseThrow().getIngredients())
+                .hasSize(INGREDIENTS + 1)
+                .contains(extra);
+    }
+
+    @Test
+    void addIngredientToFood_alreadyPresent_shouldWriteNothing() {
+        statistics.clear();
+
+        foodService.addIngredientToFood(food.getId(), ingredients.get(0).getId());
+        entityManager.flush();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getCollectionUpdateCount()).isZero();
+    }
+
+    @Test
+    void removeIngredientFromFood_shouldDeleteSingleRow() {
+        statistics.clear();
+
+        foodService.removeIngredientFromFood(food.getId(), ingredients.get(0).getId());
+        entityManager.flush();
+
+        // Блюдо, текущий состав и один DELETE
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        entityManager.clear();
+        assertThat(foodRepository.findById(food.getId()).orElseThrow().getIngredients())
+                .hasSize(INGREDIENTS - 1)
+                .doesNotContain(ingredients.get(0));
+    }
+
+    @Test
+    void removeIngredientFromFood_notInFood_shouldThrow() {
+        assertThatThrownBy(() -> foodService.removeIngredientFromFood(food.getId(), extra.getId()))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void replaceIngredients_shouldWriteOnlyChangedRows() {
+        Set<Long> ids = new LinkedHashSet<>();
+        ingredients.subList(2, INGREDIENTS).forEach(ingredient -> ids.add(ingredient.getId()));
+        ids.add(extra.getId());
+        long version = catalogVersion.current();
+        statistics.clear();
+
+        foodService.replaceIngredients(food.getId(), ids);
+        entityManager.flush();
+        // До коммита каталог не меняется
+        assertThat(catalogVersion.current()).isEqualTo(version);
+        runAfterCommit();
+
+        // Блюдо, текущий состав, новые ингредиенты, два DELETE и один INSERT
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(6);
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        assertThat(catalogVersion.current()).isEqualTo(version + 1);
+        entityManager.clear();
+        assertThat(foodRepository.findById(food.getId()).orElseThrow().getIngredients())
+                .extracting(Ingredient::getId)
+                .containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void replaceIngredients_unknownIngredient_shouldThrowAndWriteNothing() {
+        statistics.clear();
+
+        assertThatThrownBy(() -> foodService.replaceIngredients(food.getId(), Set.of(extra.getId(), -1L)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("-1");
+        entityManager.flush();
+
+        assertThat(statistics.getCollectionUpdateCount()).isZero();
+    }
+
+    @Test
+    void updateFood_shouldWriteOnlyChangedRows() {
+        List<Ingredient> replaced = new ArrayList<>(ingredients.subList(1, INGREDIENTS));
+        replaced.add(extra);
+        statistics.clear();
+
+        foodService.updateFood(food.getId(), Food.builder().ingredients(new LinkedHashSet<>(replaced)).build());
+        entityManager.flush();
+
+        // Блюдо, ингредиенты по id, текущий состав, один DELETE и один INSERT
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        entityManager.clear();
+        assertThat(foodRepository.findById(food.getId()).orElseThrow().getIngredients())
+                .containsExactlyInAnyOrderElementsOf(replaced);
+    }
+}
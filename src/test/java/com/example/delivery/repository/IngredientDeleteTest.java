@@ -0,0 +1,92 @@
+package com.example.delivery.repository;
+
+import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.model.Ingredient;
+import com.example.delivery.search.IngredientIndex;
+import com.example.delivery.service.impl.IngredientServiceImpl;
+import com.example.delivery.utils.CustomCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Удаление ингредиента на H2: связи удаляются одним DELETE по таблице food_ingredient,
+ * блюда не загружаются, и число запросов не зависит от того, во скольких блюдах он был.
+ */
+class IngredientDeleteTest extends CatalogJpaTest {
+
+    private static final int FOODS = 60;
+
+    private final CustomCache<Long, FoodSnapshot> foodCache = new CustomCache<>(60000, 1000);
+    private final IngredientIndex ingredientIndex = new IngredientIndex();
+    private IngredientServiceImpl ingredientService;
+    private Ingredient salt;
+    private Ingredient pepper;
+    private Ingredient basil;
+
+    @BeforeEach
+    void setUp() {
+        Category category = entityManager.persist(Category.builder().name("Soups").build());
+        salt = entityManager.persist(Ingredient.builder().name("Salt").build());
+        pepper = entityManager.persist(Ingredient.builder().name("Pepper").build());
+        basil = entityManager.persist(Ingredient.builder().name("Basil").build());
+        for (int i = 0; i < FOODS; i++) {
+            Set<Ingredient> ingredients = new LinkedHashSet<>(List.of(salt, i % 2 == 0 ? pepper : basil));
+            entityManager.persist(Food.builder()
+                    .name("Soup " + i)
+                    .price(BigDecimal.TEN)
+                    .category(category)
+                    .ingredients(ingredients)
+                    .build());
+        }
+        // Блюдо без соли: его кэш и состав удаление не трогает
+        entityManager.persist(Food.builder()
+                .name("Tea")
+                .category(category)
+                .ingredients(new LinkedHashSet<>(List.of(basil)))
+                .build());
+        flushAndClear();
+        List<FoodSnapshot> snapshots = foodRepository.findAllWithDetails().stream().map(FoodSnapshot::of).toList();
+        snapshots.forEach(snapshot -> foodCache.put(snapshot.getId(), snapshot));
+        ingredientIndex.rebuild(snapshots);
+        entityManager.clear();
+        ingredientService = new IngredientServiceImpl(ingredientRepository, foodCache, List.of(ingredientIndex));
+    }
+
+    @Test
+    void deleteIngredient_shouldRunThreeStatementsRegardlessOfFoodCount() {
+        statistics.clear();
+
+        ingredientService.deleteIngredient(salt.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        // До коммита кэш и индекс не трогаются
+        assertThat(foodCache.size()).isEqualTo(FOODS + 1);
+        runAfterCommit();
+        assertThat(foodCache.size()).isEqualTo(1);
+        assertThat(ingredientIndex.filter(List.of(salt.getId()), List.of(), 1000)).isEmpty();
+        assertThat(ingredientIndex.filter(List.of(pepper.getId()), List.of(), 1000)).hasSize(FOODS / 2);
+
+        entityManager.clear();
+        assertThat(ingredientRepository.existsById(salt.getId())).isFalse();
+        assertThat(foodRepository.findAllWithDetails())
+                .hasSize(FOODS + 1)
+                .allSatisfy(food -> assertThat(food.getIngredients()).hasSize(1).doesNotContain(salt));
+    }
+
+    @Test
+    void deleteIngredient_missing_shouldThrowAndKeepCache() {
+        assertThatThrownBy(() -> ingredientService.deleteIngredient(-1L))
+                .hasMessageContaining("-1");
+        assertThat(foodCache.size()).isEqualTo(FOODS + 1);
+    }
+}
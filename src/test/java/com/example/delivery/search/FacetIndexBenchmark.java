@@ -0,0 +1,67 @@
+package com.example.delivery.search;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Пропускная способность /food/browse на миллионе блюд: полный проход по столбцам
+ * (категория и цена), проход с исключением ингредиента и выборка по битовым картам состава.
+ * Все запросы сортируют по цене и берут вторую страницу по 20.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class FacetIndexBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"category-price", "exclude", "include"})
+    public String filter;
+
+    private FacetIndex index;
+    private FacetQuery query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new FacetIndex();
+        index.rebuild(SyntheticCatalog.foods(size));
+        query = switch (filter) {
+            case "category-price" -> new FacetQuery(1L, 500L, 1200L, List.of(), List.of(),
+                    FacetQuery.Sort.PRICE_ASC, 20, 20);
+            case "exclude" -> new FacetQuery(null, null, 1500L, List.of(), List.of(7L),
+                    FacetQuery.Sort.PRICE_DESC, 20, 20);
+            default -> new FacetQuery(null, 500L, null, List.of(7L, 8L), List.of(9L),
+                    FacetQuery.Sort.PRICE_ASC, 20, 20);
+        };
+    }
+
+    @Benchmark
+    public FacetIndex.Result filter() {
+        return index.filter(query);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FacetIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
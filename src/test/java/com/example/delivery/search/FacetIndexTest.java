@@ -0,0 +1,136 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.model.Ingredient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private FacetIndex index;
+
+    private static FoodSnapshot food(long id, String price, long categoryId, long... ingredientIds) {
+        return FoodSnapshot.of(Food.builder()
+                .id(id)
+                .name("Food " + id)
+                .price(price == null ? null : new BigDecimal(price))
+                .category(new Category(categoryId, "Category " + categoryId, null))
+                .ingredients(Arrays.stream(ingredientIds)
+                        .mapToObj(ingredientId -> new Ingredient(ingredientId, "Ingredient " + ingredientId, null))
+                        .collect(Collectors.toCollection(LinkedHashSet::new)))
+                .build());
+    }
+
+    private static FacetQuery query(Long categoryId, Long minCents, Long maxCents, FacetQuery.Sort sort,
+                                    int offset, int limit) {
+        return new FacetQuery(categoryId, minCents, maxCents, List.of(), List.of(), sort, offset, limit);
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        index.rebuild(List.of(
+                food(1, "7.50", 1, 10),
+                food(2, "5.00", 1, 10, 20),
+                food(3, "12.00", 2, 20),
+                food(4, "12.00", 1, 30),
+                food(5, null, 1, 10)));
+    }
+
+    @Test
+    void filter_shouldSortByPriceWithUnpricedLast() {
+        assertThat(index.filter(query(null, null, null, FacetQuery.Sort.PRICE_ASC, 0, 10)).ids())
+                .containsExactly(2L, 1L, 3L, 4L, 5L);
+        assertThat(index.filter(query(null, null, null, FacetQuery.Sort.PRICE_DESC, 0, 10)).ids())
+                .containsExactly(3L, 4L, 1L, 2L, 5L);
+        assertThat(index.filter(query(1L, 500L, 1200L, FacetQuery.Sort.PRICE_DESC, 0, 10)).ids())
+                .containsExactly(4L, 1L, 2L);
+    }
+
+    @Test
+    void removeIngredient_shouldDropItFromEveryRow() {
+        index.removeIngredient(10L, new long[] {1L, 2L, 5L});
+        index.remove(2L);
+
+        FacetQuery withTen = new FacetQuery(null, null, null, List.of(10L), List.of(), FacetQuery.Sort.ID, 0, 10);
+        FacetQuery withTwenty = new FacetQuery(null, null, null, List.of(20L), List.of(), FacetQuery.Sort.ID, 0, 10);
+        assertThat(index.filter(withTen).total()).isZero();
+        assertThat(index.filter(withTwenty).ids()).containsExactly(3L);
+    }
+
+    @Test
+    void filter_shouldPageAndCountTotal() {
+        FacetIndex.Result first = index.filter(query(1L, null, null, FacetQuery.Sort.ID, 0, 2));
+        FacetIndex.Result second = index.filter(query(1L, null, null, FacetQuery.Sort.ID, 2, 2));
+        FacetIndex.Result beyond = index.filter(query(1L, null, null, FacetQuery.Sort.ID, 10, 2));
+
+        assertThat(first.ids()).containsExactly(1L, 2L);
+        assertThat(second.ids()).containsExactly(4L, 5L);
+        assertThat(beyond.ids()).isEmpty();
+        assertThat(first.total()).isEqualTo(4);
+        assertThat(beyond.total()).isEqualTo(4);
+        assertThat(index.filter(query(99L, null, null, FacetQuery.Sort.ID, 0, 2)).total()).isZero();
+    }
+
+    @Test
+    void filter_shouldApplyIngredientsAndFollowWrites() {
+        FacetQuery withTen = new FacetQuery(null, null, null, List.of(10L), List.of(20L), FacetQuery.Sort.ID, 0, 10);
+        FacetQuery withoutTen = new FacetQuery(null, null, null, List.of(), List.of(10L), FacetQuery.Sort.ID, 0, 10);
+        assertThat(index.filter(withTen).ids()).containsExactly(1L, 5L);
+        assertThat(index.filter(withoutTen).ids()).containsExactly(3L, 4L);
+
+        index.index(food(3, "1.00", 2, 10));
+        index.remove(5L);
+
+        assertThat(index.filter(withTen).ids()).containsExactly(1L, 3L);
+        assertThat(index.filter(withoutTen).ids()).containsExactly(4L);
+        assertThat(index.filter(query(null, null, null, FacetQuery.Sort.PRICE_ASC, 0, 1)).ids()).containsExactly(3L);
+    }
+
+    @Test
+    void filter_shouldMatchLinearScanOnSyntheticCatalog() {
+        List<FoodSnapshot> foods = SyntheticCatalog.foods(20_000);
+        index.rebuild(foods);
+        FacetQuery query = new FacetQuery(3L, 500L, 1200L, List.of(7L), List.of(8L), FacetQuery.Sort.PRICE_DESC, 40, 20);
+
+        Predicate<FoodSnapshot> matches = food -> food.getCategoryId() == 3L
+                && cents(food) >= 500 && cents(food) <= 1200
+                && has(food, 7L) && !has(food, 8L);
+        List<FoodSnapshot> expected = foods.stream()
+                .filter(matches)
+                .sorted(Comparator.comparingLong(FacetIndexTest::cents).reversed()
+                        .thenComparingLong(FoodSnapshot::getId))
+                .toList();
+
+        FacetIndex.Result result = index.filter(query);
+        assertThat(result.total()).isEqualTo(expected.size());
+        assertThat(result.ids()).containsExactly(expected.stream()
+                .skip(40).limit(20).mapToLong(FoodSnapshot::getId).toArray());
+    }
+
+    private static long cents(FoodSnapshot food) {
+        return FacetIndex.toCents(food.getPrice(), RoundingMode.HALF_UP);
+    }
+
+    private static boolean has(FoodSnapshot food, long ingredientId) {
+        for (int i = 0; i < food.getIngredientCount(); i++) {
+            if (food.getIngredientId(i) == ingredientId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.delivery.search;
+
+import com.example.delivery.service.impl.VisitCounterServiceImpl;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Задержка /food/search?fuzzy=true в зависимости от размера каталога. Поиск кандидатов
+ * по словарю от каталога не зависит, растёт только пересечение и сортировка совпавших
+ * блюд: одно частое слово, два слова с опечатками и почти уникальное название.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class FuzzyIndexBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"lasagne", "spicy chikcen", "smokd salmon ravoili"})
+    public String query;
+
+    private FuzzyIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new FuzzyIndex(new VisitCounterServiceImpl());
+        index.rebuild(SyntheticCatalog.foods(size));
+    }
+
+    @Benchmark
+    public long[] search() {
+        return index.search(query, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FuzzyIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.service.impl.VisitCounterServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FuzzyIndexTest {
+
+    private final VisitCounterServiceImpl visits = new VisitCounterServiceImpl();
+    private FuzzyIndex index;
+
+    private static FoodSnapshot food(long id, String name) {
+        return FoodSnapshot.of(Food.builder().id(id).name(name).build());
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new FuzzyIndex(visits);
+        index.rebuild(List.of(
+                food(1, "Chicken Curry"),
+                food(2, "Chickpea Curry"),
+                food(3, "Beef Lasagna"),
+                food(4, "Chicken Soup 7")));
+    }
+
+    @Test
+    void distance_shouldCountTranspositionAsOneEdit() {
+        assertThat(FuzzyIndex.distance("chikcen", "chicken", 2)).isEqualTo(1);
+        assertThat(FuzzyIndex.distance("chiken", "chicken", 2)).isEqualTo(1);
+        assertThat(FuzzyIndex.distance("lasagne", "lasagna", 2)).isEqualTo(1);
+        assertThat(FuzzyIndex.distance("chicken", "chickpea", 2)).isEqualTo(2);
+        assertThat(FuzzyIndex.distance("chicken", "chickpeas", 2)).isEqualTo(-1);
+        assertThat(FuzzyIndex.distance("soup", "stew", 2)).isEqualTo(-1);
+    }
+
+    @Test
+    void search_shouldRankByDistanceThenPopularity() {
+        assertThat(index.search("chiken cury", 10)).containsExactly(1L);
+        // Точные совпадения раньше chickpea (расстояние 2)
+        assertThat(index.search("CHICKEN", 10)).containsExactly(1L, 4L, 2L);
+
+        visits.incrementVisitCount("/food/4");
+        index.refreshPopularity();
+        assertThat(index.search("chicken", 10)).containsExactly(4L, 1L, 2L);
+        // "curry" точно у обоих, "chickpee" ближе к chickpea (1), чем к chicken (2)
+        assertThat(index.search("chickpee curry", 10)).containsExactly(2L, 1L);
+        assertThat(index.search("curry", 1)).containsExactly(1L);
+    }
+
+    @Test
+    void search_shouldBoundEditDistance() {
+        // В коротком слове допускается одна опечатка, в длинном — две
+        assertThat(index.search("sop", 10)).containsExactly(4L);
+        assertThat(index.search("sp", 10)).isEmpty();
+        assertThat(index.search("lsagan", 10)).containsExactly(3L);
+        assertThat(index.search("lsgan", 10)).isEmpty();
+        // Номер сравнивается только точно
+        assertThat(index.search("soup 7", 10)).containsExactly(4L);
+        assertThat(index.search("soup 8", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void index_shouldFollowRenamesAndRemovals() {
+        index.index(food(3, "Beef Stew"));
+        index.remove(1L);
+
+        assertThat(index.search("lasagna", 10)).isEmpty();
+        assertThat(index.search("stwe", 10)).containsExactly(3L);
+        assertThat(index.search("chicken curry", 10)).containsExactly(2L);
+        assertThat(index.search("chicken soup", 10)).containsExactly(4L);
+        assertThat(index.search("chicken", 10)).containsExactly(4L, 2L);
+    }
+}
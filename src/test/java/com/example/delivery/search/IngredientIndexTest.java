@@ -0,0 +1,111 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.model.Ingredient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IngredientIndexTest {
+
+    private IngredientIndex index;
+
+    private static FoodSnapshot food(long id, long... ingredientIds) {
+        return FoodSnapshot.of(Food.builder()
+                .id(id)
+                .name("Food " + id)
+                .ingredients(Arrays.stream(ingredientIds)
+                        .mapToObj(ingredientId -> new Ingredient(ingredientId, "Ingredient " + ingredientId, null))
+                        .collect(Collectors.toCollection(LinkedHashSet::new)))
+                .build());
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new IngredientIndex();
+        index.rebuild(List.of(
+                food(1, 10, 20),
+                food(2, 10, 30),
+                food(3, 20, 30),
+                food(70_000, 10, 20, 30)));
+    }
+
+    @Test
+    void filter_shouldIntersectIncludesAndSubtractExcludes() {
+        assertThat(index.filter(List.of(10L), List.of(), 100)).containsExactly(1L, 2L, 70_000L);
+        assertThat(index.filter(List.of(10L, 20L), List.of(), 100)).containsExactly(1L, 70_000L);
+        assertThat(index.filter(List.of(10L), List.of(30L), 100)).containsExactly(1L);
+        assertThat(index.filter(List.of(), List.of(10L), 100)).containsExactly(3L);
+        assertThat(index.filter(List.of(), List.of(), 2)).containsExactly(1L, 2L);
+        assertThat(index.filter(List.of(10L, 99L), List.of(), 100)).isEmpty();
+        assertThat(index.filter(List.of(10L), List.of(99L), 100)).containsExactly(1L, 2L, 70_000L);
+    }
+
+    @Test
+    void index_shouldFollowCompositionChangesAndRemovals() {
+        index.index(food(1, 30));
+        index.remove(70_000L);
+
+        assertThat(index.filter(List.of(10L), List.of(), 100)).containsExactly(2L);
+        assertThat(index.filter(List.of(30L), List.of(), 100)).containsExactly(1L, 2L, 3L);
+        assertThat(index.filter(List.of(), List.of(30L), 100)).isEmpty();
+    }
+
+    @Test
+    void filter_shouldAcceptIdsBeyondIntAndKeepIdOrderAfterRowReuse() {
+        long bigId = Integer.MAX_VALUE + 10L;
+        index.index(food(bigId, 10));
+        // Строка удалённого блюда достаётся следующему, но выдача всё равно по возрастанию id
+        index.remove(2L);
+        index.index(food(5, 10));
+
+        assertThat(index.filter(List.of(10L), List.of(), 100)).containsExactly(1L, 5L, 70_000L, bigId);
+        assertThat(index.filter(List.of(10L), List.of(), 2)).containsExactly(1L, 5L);
+        index.remove(bigId);
+        assertThat(index.filter(List.of(10L), List.of(20L), 100)).containsExactly(5L);
+    }
+
+    @Test
+    void removeIngredient_shouldDropItFromEveryFood() {
+        index.removeIngredient(10L, new long[] {1L, 2L, 70_000L});
+
+        assertThat(index.filter(List.of(10L), List.of(), 100)).isEmpty();
+        assertThat(index.filter(List.of(), List.of(10L), 100)).containsExactly(1L, 2L, 3L, 70_000L);
+        // Состав блюда обновлён и в обратную сторону: удаление не трогает чужие карты
+        index.remove(1L);
+        assertThat(index.filter(List.of(20L), List.of(), 100)).containsExactly(3L, 70_000L);
+    }
+
+    @Test
+    void filter_shouldMatchLinearScanOnSyntheticCatalog() {
+        List<FoodSnapshot> foods = SyntheticCatalog.foods(20_000);
+        index.rebuild(foods);
+        List<Long> include = List.of(1L, 2L);
+        List<Long> exclude = List.of(3L, 4L, 5L);
+
+        long[] expected = foods.stream()
+                .filter(food -> has(food, 1L) && has(food, 2L) && !has(food, 3L) && !has(food, 4L) && !has(food, 5L))
+                .mapToLong(FoodSnapshot::getId)
+                .sorted()
+                .toArray();
+
+        assertThat(expected).isNotEmpty();
+        assertThat(index.filter(include, exclude, Integer.MAX_VALUE)).containsExactly(expected);
+    }
+
+    private static boolean has(FoodSnapshot food, long ingredientId) {
+        for (int i = 0; i < food.getIngredientCount(); i++) {
+            if (food.getIngredientId(i) == ingredientId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
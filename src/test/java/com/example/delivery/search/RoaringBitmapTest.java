@@ -0,0 +1,69 @@
+package com.example.delivery.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RoaringBitmapTest {
+
+    private static int[] toArray(BitSet set) {
+        return set.stream().toArray();
+    }
+
+    // Равномерно по нескольким диапазонам: есть и разреженные, и плотные контейнеры
+    private static void fill(RoaringBitmap bitmap, BitSet reference, Random random, int count, int bound) {
+        for (int i = 0; i < count; i++) {
+            int value = random.nextInt(bound);
+            bitmap.add(value);
+            reference.set(value);
+        }
+    }
+
+    @Test
+    void addRemoveContains_shouldMatchBitSet() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        BitSet reference = new BitSet();
+        Random random = new Random(1);
+        fill(bitmap, reference, random, 50_000, 200_000);
+        for (int i = 0; i < 30_000; i++) {
+            int value = random.nextInt(200_000);
+            bitmap.remove(value);
+            reference.clear(value);
+        }
+
+        assertThat(bitmap.cardinality()).isEqualTo(reference.cardinality());
+        assertThat(bitmap.toIntArray(Integer.MAX_VALUE)).containsExactly(toArray(reference));
+        for (int value = 0; value < 200_000; value += 7) {
+            assertThat(bitmap.contains(value)).isEqualTo(reference.get(value));
+        }
+        assertThat(bitmap.toIntArray(3)).containsExactly(reference.stream().limit(3).toArray());
+    }
+
+    @Test
+    void andAndNot_shouldMatchBitSet() {
+        Random random = new Random(2);
+        // Плотная карта (битовые контейнеры) против разреженной (массивы) и наоборот
+        RoaringBitmap dense = new RoaringBitmap();
+        BitSet denseReference = new BitSet();
+        fill(dense, denseReference, random, 150_000, 262_144);
+        RoaringBitmap sparse = new RoaringBitmap();
+        BitSet sparseReference = new BitSet();
+        fill(sparse, sparseReference, random, 3_000, 400_000);
+
+        BitSet and = (BitSet) denseReference.clone();
+        and.and(sparseReference);
+        BitSet denseMinusSparse = (BitSet) denseReference.clone();
+        denseMinusSparse.andNot(sparseReference);
+        BitSet sparseMinusDense = (BitSet) sparseReference.clone();
+        sparseMinusDense.andNot(denseReference);
+
+        assertThat(RoaringBitmap.and(dense, sparse).toIntArray(Integer.MAX_VALUE)).containsExactly(toArray(and));
+        assertThat(RoaringBitmap.and(dense, dense).toIntArray(Integer.MAX_VALUE)).containsExactly(toArray(denseReference));
+        assertThat(RoaringBitmap.andNot(dense, sparse).toIntArray(Integer.MAX_VALUE)).containsExactly(toArray(denseMinusSparse));
+        assertThat(RoaringBitmap.andNot(sparse, dense).toIntArray(Integer.MAX_VALUE)).containsExactly(toArray(sparseMinusDense));
+        assertThat(RoaringBitmap.andNot(dense, dense).isEmpty()).isTrue();
+    }
+}
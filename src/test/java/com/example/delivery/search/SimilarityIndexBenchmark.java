@@ -0,0 +1,76 @@
+package com.example.delivery.search;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Задержка /food/{id}/similar?k=10 по размеру каталога в сравнении с точным перебором
+ * всех блюд по Жаккару. Блюдо запроса меняется на каждом вызове.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class SimilarityIndexBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private SimilarityIndex index;
+    private long[][] sets;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var foods = SyntheticCatalog.foods(size);
+        index = new SimilarityIndex();
+        index.rebuild(foods);
+        sets = foods.stream().map(food -> {
+            long[] ids = new long[food.getIngredientCount()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = food.getIngredientId(i);
+            }
+            java.util.Arrays.sort(ids);
+            return ids;
+        }).toArray(long[][]::new);
+    }
+
+    @Benchmark
+    public long[] lsh() {
+        next = next * 31 + 17;
+        return index.similar(1 + Math.floorMod(next, size), 10);
+    }
+
+    @Benchmark
+    public double exactScan() {
+        next = next * 31 + 17;
+        long[] query = sets[Math.floorMod(next, size)];
+        double best = 0;
+        for (long[] set : sets) {
+            best += SimilarityIndex.jaccard(query, set);
+        }
+        return best;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SimilarityIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.model.Ingredient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SimilarityIndexTest {
+
+    private SimilarityIndex index;
+
+    private static FoodSnapshot food(long id, long... ingredientIds) {
+        return FoodSnapshot.of(Food.builder()
+                .id(id)
+                .name("Food " + id)
+                .ingredients(Arrays.stream(ingredientIds)
+                        .mapToObj(ingredientId -> new Ingredient(ingredientId, "Ingredient " + ingredientId, null))
+                        .collect(Collectors.toCollection(LinkedHashSet::new)))
+                .build());
+    }
+
+    private static long[] ingredientIds(FoodSnapshot food) {
+        long[] ids = new long[food.getIngredientCount()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = food.getIngredientId(i);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new SimilarityIndex();
+        index.rebuild(List.of(
+                food(1, 1, 2, 3, 4),
+                food(2, 1, 2, 3, 4),
+                food(3, 1, 2, 3, 5),
+                food(4, 100, 101, 102),
+                food(5)));
+    }
+
+    @Test
+    void similar_shouldRankByJaccard() {
+        assertThat(index.similar(1L, 10)).startsWith(2L, 3L).doesNotContain(1L, 4L, 5L);
+        assertThat(index.similar(1L, 1)).containsExactly(2L);
+        assertThat(index.similar(5L, 10)).isEmpty();
+        assertThat(index.similar(99L, 10)).isNull();
+        assertThat(SimilarityIndex.jaccard(new long[] {1, 2, 3, 4}, new long[] {1, 2, 3, 5})).isEqualTo(0.6);
+    }
+
+    @Test
+    void index_shouldFollowIngredientChanges() {
+        index.index(food(4, 1, 2, 3, 4));
+        index.remove(2L);
+
+        assertThat(index.similar(1L, 1)).containsExactly(4L);
+        assertThat(index.similar(4L, 10)).doesNotContain(2L).contains(1L);
+    }
+
+    @Test
+    void removeIngredient_shouldMoveFoodToNewBuckets() {
+        index.removeIngredient(5L, new long[] {3L});
+        // Корзины старой сигнатуры очищены: после удаления блюда от него ничего не остаётся
+        index.remove(3L);
+        assertThat(index.similar(1L, 10)).containsExactly(2L);
+
+        index.removeIngredient(100L, new long[] {4L});
+        index.removeIngredient(101L, new long[] {4L});
+        index.removeIngredient(102L, new long[] {4L});
+        assertThat(index.similar(4L, 10)).isEmpty();
+    }
+
+    /**
+     * Офлайн-оценка качества: полнота приблизительного топ-10 против точного перебора по
+     * Жаккару. Блюдо из ответа засчитывается, если его похожесть не ниже десятой в точном
+     * топе — при равных значениях любое из них одинаково правильно.
+     */
+    @Test
+    void similar_shouldRecallExactTopKOnSyntheticCatalog() {
+        List<FoodSnapshot> foods = SyntheticCatalog.foods(20_000);
+        index.rebuild(foods);
+        long[][] sets = foods.stream().map(SimilarityIndexTest::ingredientIds).toArray(long[][]::new);
+        int k = 10;
+        Random random = new Random(7);
+        int hits = 0;
+        int expected = 0;
+        for (int q = 0; q < 200; q++) {
+            int query = random.nextInt(foods.size());
+            double[] exact = new double[foods.size()];
+            for (int i = 0; i < foods.size(); i++) {
+                exact[i] = i == query ? -1 : SimilarityIndex.jaccard(sets[query], sets[i]);
+            }
+            double[] sorted = exact.clone();
+            Arrays.sort(sorted);
+            double kth = sorted[sorted.length - k];
+
+            for (long id : index.similar(foods.get(query).getId(), k)) {
+                if (exact[(int) id - 1] >= kth) {
+                    hits++;
+                }
+            }
+            expected += k;
+        }
+        double recall = (double) hits / expected;
+        assertThat(recall).isGreaterThan(0.9);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.service.impl.VisitCounterServiceImpl;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Задержка /food/suggest на миллионе названий: SampleTime показывает p99 и p99.9.
+ * Префиксы от одной буквы (огромное поддерево, топ из кэша узла) до почти полного
+ * названия (маленькое поддерево, сортировка на лету).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class SuggestIndexBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"s", "spicy", "spicy chicken", "spicy chicken ravioli 1"})
+    public String prefix;
+
+    private SuggestIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        VisitCounterServiceImpl visits = new VisitCounterServiceImpl();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Немного очень популярных блюд и длинный хвост
+            long id = 1 + (long) (size * Math.pow(random.nextDouble(), 4));
+            visits.incrementVisitCount("/food/" + id);
+        }
+        List<FoodSnapshot> foods = SyntheticCatalog.foods(size);
+        index = new SuggestIndex(visits);
+        index.rebuild(foods);
+    }
+
+    @Benchmark
+    public List<Suggestion> suggest() {
+        return index.suggest(prefix, 10);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SuggestIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
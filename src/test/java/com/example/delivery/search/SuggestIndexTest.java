@@ -0,0 +1,96 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.service.impl.VisitCounterServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SuggestIndexTest {
+
+    private final VisitCounterServiceImpl visits = new VisitCounterServiceImpl();
+    private SuggestIndex index;
+
+    private static FoodSnapshot food(long id, String name, long categoryId, String categoryName) {
+        return FoodSnapshot.of(Food.builder()
+                .id(id)
+                .name(name)
+                .category(new Category(categoryId, categoryName, null))
+                .build());
+    }
+
+    private void visit(String url, int times) {
+        for (int i = 0; i < times; i++) {
+            visits.incrementVisitCount(url);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestIndex(visits);
+        index.rebuild(List.of(
+                food(1, "Pizza Margherita", 10, "Pizza"),
+                food(2, "Pizza Pepperoni", 10, "Pizza"),
+                food(3, "Pie with Apples", 20, "Desserts")));
+    }
+
+    @Test
+    void suggest_shouldRankByPopularity() {
+        visit("/food/2", 5);
+        visit("/category/10", 3);
+        visit("/food/1", 1);
+        index.refreshPopularity();
+
+        assertThat(index.suggest("PI", 10)).extracting(Suggestion::id, Suggestion::type).containsExactly(
+                tuple(2L, Suggestion.Type.FOOD),
+                tuple(10L, Suggestion.Type.CATEGORY),
+                tuple(1L, Suggestion.Type.FOOD),
+                tuple(3L, Suggestion.Type.FOOD));
+        assertThat(index.suggest("pizza p", 10)).extracting(Suggestion::name).containsExactly("Pizza Pepperoni");
+        assertThat(index.suggest("pizza x", 10)).isEmpty();
+        assertThat(index.suggest("des", 1)).extracting(Suggestion::name).containsExactly("Desserts");
+    }
+
+    @Test
+    void index_shouldFollowRenamesAndRemovals() {
+        index.index(food(1, "Calzone", 10, "Italian"));
+        index.index(food(2, "Pizza Pepperoni", 10, "Italian"));
+        index.remove(3L);
+
+        assertThat(index.suggest("pi", 10)).extracting(Suggestion::name).containsExactly("Pizza Pepperoni");
+        assertThat(index.suggest("it", 10)).extracting(Suggestion::name).containsExactly("Italian");
+        assertThat(index.suggest("d", 10)).isEmpty();
+    }
+
+    @Test
+    void index_shouldKeepCategoryWhenSnapshotHasNoCategoryName() {
+        index.index(food(100, "Kebab", 77, "Grill"));
+        index.index(food(100, "Kebab", 77, null));
+
+        assertThat(index.suggest("gri", 10)).extracting(Suggestion::name).containsExactly("Grill");
+    }
+
+    @Test
+    void suggest_shouldUseCachedTopForLargeSubtrees() {
+        List<FoodSnapshot> foods = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            foods.add(food(id, "Soup " + id, 1, "Soups"));
+        }
+        index.rebuild(foods);
+        visit("/food/777", 2);
+        visit("/food/42", 1);
+        index.refreshPopularity();
+
+        assertThat(index.suggest("soup", 3)).extracting(Suggestion::name)
+                .containsExactly("Soup 777", "Soup 42", "Soups");
+
+        index.remove(777L);
+        assertThat(index.suggest("soup ", 2)).extracting(Suggestion::name).containsExactly("Soup 42", "Soup 1");
+    }
+}
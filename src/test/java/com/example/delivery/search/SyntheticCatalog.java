@@ -0,0 +1,74 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.model.Ingredient;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Детерминированный каталог для тестов и бенчмарков индексов: названия вида
+ * «Spicy Chicken Ravioli 123», 20 категорий, по 3–8 ингредиентов из 200.
+ */
+final class SyntheticCatalog {
+
+    static final String[] ADJECTIVES = {
+        "Spicy", "Creamy", "Smoked", "Grilled", "Crispy", "Roasted", "Sweet", "Sour", "Garlic",
+        "Honey", "Lemon", "Pepper", "Truffle", "Herb", "Cheesy", "Classic", "Rustic", "Fiery",
+        "Golden", "Tangy", "Buttery", "Zesty", "Savory", "Baked", "Fried", "Steamed", "Glazed",
+        "Stuffed", "Braised", "Wild"
+    };
+    static final String[] MAINS = {
+        "Chicken", "Beef", "Pork", "Salmon", "Tuna", "Shrimp", "Mushroom", "Tofu", "Lamb", "Duck",
+        "Turkey", "Cod", "Crab", "Lobster", "Spinach", "Eggplant", "Potato", "Tomato", "Pumpkin",
+        "Chickpea", "Lentil", "Avocado", "Bacon", "Ham", "Sausage", "Mozzarella", "Feta",
+        "Halloumi", "Squid", "Octopus"
+    };
+    static final String[] DISHES = {
+        "Pizza", "Burger", "Ravioli", "Lasagna", "Risotto", "Salad", "Soup", "Curry", "Tacos",
+        "Burrito", "Wrap", "Sandwich", "Noodles", "Ramen", "Dumplings", "Pie", "Stew", "Skewers",
+        "Bowl", "Omelette"
+    };
+    static final String[] CATEGORIES = {
+        "Pizza", "Burgers", "Pasta", "Salads", "Soups", "Asian", "Mexican", "Grill", "Seafood",
+        "Vegan", "Breakfast", "Desserts", "Drinks", "Sandwiches", "Bowls", "Street Food",
+        "Kids", "Specials", "Snacks", "Bakery"
+    };
+    static final int INGREDIENTS = 200;
+
+    private SyntheticCatalog() {
+    }
+
+    static String name(long id) {
+        int i = (int) id;
+        return ADJECTIVES[i % ADJECTIVES.length] + " "
+                + MAINS[(i / ADJECTIVES.length) % MAINS.length] + " "
+                + DISHES[(i / (ADJECTIVES.length * MAINS.length)) % DISHES.length] + " " + id;
+    }
+
+    static List<FoodSnapshot> foods(int size) {
+        Random random = new Random(size);
+        List<FoodSnapshot> foods = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            int category = random.nextInt(CATEGORIES.length);
+            int ingredientCount = 3 + random.nextInt(6);
+            Set<Ingredient> ingredients = random.ints(1, INGREDIENTS + 1).distinct().limit(ingredientCount)
+                    .mapToObj(ingredient -> new Ingredient((long) ingredient, "Ingredient " + ingredient, null))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            foods.add(FoodSnapshot.of(Food.builder()
+                    .id(id)
+                    .name(name(id))
+                    .price(BigDecimal.valueOf(300 + random.nextInt(2700), 2))
+                    .category(new Category((long) category + 1, CATEGORIES[category], null))
+                    .ingredients(ingredients)
+                    .build()));
+        }
+        return foods;
+    }
+}
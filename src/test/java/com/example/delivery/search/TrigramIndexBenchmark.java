@@ -0,0 +1,102 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.FoodSnapshot;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Поиск подстроки в названии: индекс триграмм против того же LIKE, что в
+ * FoodRepository.findByNameContainingIgnoreCase, на H2 в памяти (без сети и диска —
+ * то есть SQL-путь здесь даже быстрее, чем с настоящим Postgres).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class TrigramIndexBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    // Частое слово, редкое сочетание и почти уникальное название
+    @Param({"chicken", "smoked salmon", "ravioli 4242"})
+    public String query;
+
+    private TrigramIndex index;
+    private Connection connection;
+    private PreparedStatement like;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        List<FoodSnapshot> foods = SyntheticCatalog.foods(size);
+        index = new TrigramIndex();
+        index.rebuild(foods);
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:trigram" + size);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE food (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO food VALUES (?, ?)")) {
+            for (FoodSnapshot food : foods) {
+                insert.setLong(1, food.getId());
+                insert.setString(2, food.getName());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        like = connection.prepareStatement(
+                "SELECT f.* FROM food f WHERE LOWER(f.name) LIKE LOWER(CONCAT('%', ?, '%'))");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long[] trigramIndex() {
+        return index.search(query);
+    }
+
+    @Benchmark
+    public int sqlLike() throws SQLException {
+        like.setString(1, query);
+        int rows = 0;
+        try (ResultSet resultSet = like.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TrigramIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
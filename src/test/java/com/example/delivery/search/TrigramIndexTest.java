@@ -0,0 +1,54 @@
+package com.example.delivery.search;
+
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    private static FoodSnapshot food(long id, String name) {
+        Food food = new Food();
+        food.setId(id);
+        food.setName(name);
+        return FoodSnapshot.of(food);
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.rebuild(List.of(food(1, "Pizza Margherita"), food(2, "Pepperoni Pizza"), food(3, "Борщ")));
+    }
+
+    @Test
+    void search_shouldMatchSubstringIgnoringCase() {
+        assertThat(index.search("PIZZA")).containsExactly(1L, 2L);
+        assertThat(index.search("rita")).containsExactly(1L);
+        assertThat(index.search("борщ")).containsExactly(3L);
+        assertThat(index.search("zz")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void search_shouldVerifyThatTrigramsAreAdjacent() {
+        // Все триграммы "pizza pep" есть у блюда 2, но не в этом порядке
+        assertThat(index.search("pizza pep")).isEmpty();
+        assertThat(index.search("sushi")).isEmpty();
+    }
+
+    @Test
+    void index_shouldReplacePreviousName() {
+        index.index(food(1, "Calzone"));
+        index.remove(2L);
+        index.index(food(4, "Pizza Bianca"));
+
+        assertThat(index.search("pizza")).containsExactly(4L);
+        assertThat(index.search("calz")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+}
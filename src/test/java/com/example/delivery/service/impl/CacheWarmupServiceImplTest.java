@@ -0,0 +1,93 @@
+package com.example.delivery.service.impl;
+
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.utils.CustomCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmupServiceImplTest {
+
+    @Mock
+    private FoodRepository foodRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private CustomCache<Long, FoodSnapshot> foodCache;
+    private CacheWarmupServiceImpl warmupService;
+
+    @BeforeEach
+    void setUp() {
+        foodCache = new CustomCache<>(60000, 100);
+        warmupService = new CacheWarmupServiceImpl(
+                foodRepository, foodCache, tempDir.resolve("food.snapshot"), 2, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        foodCache.shutdown();
+    }
+
+    private static FoodSnapshot food(long id) {
+        Food food = new Food();
+        food.setId(id);
+        food.setName("Food " + id);
+        return FoodSnapshot.of(food);
+    }
+
+    @Test
+    void warmUp_shouldReloadHottestIdsWithSingleQuery() {
+        foodCache.put(1L, food(1));
+        foodCache.put(2L, food(2));
+        foodCache.put(3L, food(3));
+        foodCache.get(1L);
+        assertThat(warmupService.saveSnapshot()).isEqualTo(2);
+
+        foodCache.clear();
+        when(foodRepository.findAllById(List.of(1L, 3L)))
+                .thenReturn(List.of(food(1).toFood(), food(3).toFood()));
+
+        assertThat(warmupService.warmUp()).isEqualTo(2);
+        assertThat(foodCache.get(1L).getName()).isEqualTo("Food 1");
+        assertThat(foodCache.get(3L)).isNotNull();
+        assertThat(foodCache.get(2L)).isNull();
+        verify(foodRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void warmUp_shouldStartColdWithoutUsableSnapshot() throws IOException {
+        assertThat(warmupService.warmUp()).isZero();
+
+        Files.write(tempDir.resolve("food.snapshot"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+
+        assertThat(warmupService.warmUp()).isZero();
+        verifyNoInteractions(foodRepository);
+    }
+
+    @Test
+    void saveSnapshot_shouldKeepPreviousSnapshotWhenCacheIsEmpty() {
+        foodCache.put(1L, food(1));
+        warmupService.saveSnapshot();
+        foodCache.clear();
+
+        assertThat(warmupService.saveSnapshot()).isZero();
+        assertThat(tempDir.resolve("food.snapshot")).exists();
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.delivery.service.impl;
 
 import com.example.delivery.exception.EntityNotFoundException;
+import com.example.delivery.exception.InvalidEntityException;
 import com.example.delivery.model.Category;
+import com.example.delivery.model.KeysetPage;
+import com.example.delivery.model.Food;
 import com.example.delivery.repository.CategoryRepository;
+import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.search.FoodIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.data.domain.Limit;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.*;
@@ -16,6 +22,15 @@ class CategoryServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private FoodRepository foodRepository;
+
+    @Mock
+    private FoodIndex foodIndex;
+
+    @Spy
+    private List<FoodIndex> foodIndexes = new ArrayList<>();
+
     @InjectMocks
     private CategoryServiceImpl categoryService;
 
@@ -24,6 +39,7 @@ class CategoryServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        foodIndexes.add(foodIndex);
         category = new Category();
         category.setId(1L);
         category.setName("Fast Food");
@@ -39,6 +55,26 @@ class CategoryServiceImplTest {
         assertThat(result).containsExactly(category);
     }
 
+    @Test
+    void getCategoryPage_shouldReturnCursorOnlyForFullPage() {
+        when(categoryRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(1))).thenReturn(List.of(category));
+        when(categoryRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(1))).thenReturn(List.of());
+
+        KeysetPage<Category> first = categoryService.getCategoryPage(null, 1);
+        KeysetPage<Category> last = categoryService.getCategoryPage(first.next(), 1);
+
+        assertThat(first.content()).containsExactly(category);
+        assertThat(first.next()).isEqualTo(1L);
+        assertThat(last.content()).isEmpty();
+        assertThat(last.next()).isNull();
+    }
+
+    @Test
+    void getCategoryPage_invalidLimit_shouldThrow() {
+        assertThatThrownBy(() -> categoryService.getCategoryPage(null, 0))
+                .isInstanceOf(InvalidEntityException.class);
+    }
+
     @Test
     void getCategoryById_shouldReturnIfExists() {
         when(categoryRepository.findById(1L)).thenReturn(Optional.of(category));
@@ -96,4 +132,29 @@ class CategoryServiceImplTest {
         assertThat(result.getName()).isEqualTo("Drinks");
         verify(categoryRepository).save(category);
     }
+
+    @Test
+    void deleteCategory_shouldRemoveCascadedFoodsFromIndexes() {
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(foodRepository.findIdsByCategoryId(1L)).thenReturn(List.of(5L));
+
+        categoryService.deleteCategory(1L);
+
+        verify(foodIndex).remove(5L);
+        verify(foodRepository, never()).findAllWithDetailsByCategoryId(any());
+    }
+
+    @Test
+    void updateCategory_shouldReindexFoodsWithNewName() {
+        Food food = Food.builder().id(5L).name("Burger").category(category).build();
+        Category updated = new Category();
+        updated.setName("Drinks");
+        when(categoryRepository.findById(1L)).thenReturn(Optional.of(category));
+        when(categoryRepository.save(any())).thenReturn(category);
+        when(foodRepository.findAllWithDetailsByCategoryId(1L)).thenReturn(List.of(food));
+
+        categoryService.updateCategory(1L, updated);
+
+        verify(foodIndex).index(argThat(snapshot -> snapshot.getCategoryName().equals("Drinks")));
+    }
 }
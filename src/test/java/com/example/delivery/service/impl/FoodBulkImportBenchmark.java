@@ -0,0 +1,159 @@
+package com.example.delivery.service.impl;
+
+import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.model.Ingredient;
+import com.example.delivery.repository.CategoryRepository;
+import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.repository.IngredientRepository;
+import com.example.delivery.search.TrigramIndex;
+import com.example.delivery.utils.CatalogVersion;
+import com.example.delivery.utils.CustomCache;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Строк в секунду при импорте 1000 блюд по 4 ингредиента в H2 в памяти: текущий
+ * saveFoodsBulk против прежнего построчного пути (запрос имени, findAllById и save на
+ * каждое блюдо). H2 в том же процессе, так что сетевые round trip'ы, на которых
+ * выигрыш с Postgres ещё больше, здесь не видны.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(FoodBulkImportBenchmark.ROWS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class FoodBulkImportBenchmark {
+
+    static final int ROWS = 1000;
+
+    @Param({"bulk", "per-row"})
+    public String path;
+
+    private ConfigurableApplicationContext context;
+    private FoodRepository foodRepository;
+    private IngredientRepository ingredientRepository;
+    private JdbcTemplate jdbcTemplate;
+    private FoodServiceImpl foodService;
+    private Long categoryId;
+    private final List<Long> ingredientIds = new ArrayList<>();
+    private int invocation;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Food.class)
+    @EnableJpaRepositories(basePackageClasses = FoodRepository.class)
+    static class Persistence {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Persistence.class)
+                .web(WebApplicationType.NONE)
+                // Аргументами, чтобы перекрыть Postgres из application.properties; батчи берутся оттуда же
+                .run("--spring.datasource.url=jdbc:h2:mem:bulk;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        foodRepository = context.getBean(FoodRepository.class);
+        ingredientRepository = context.getBean(IngredientRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        categoryId = context.getBean(CategoryRepository.class)
+                .save(Category.builder().name("Pizza").build()).getId();
+        for (int i = 0; i < 200; i++) {
+            ingredientIds.add(ingredientRepository.save(Ingredient.builder().name("Ingredient " + i).build()).getId());
+        }
+        CustomCache<Long, FoodSnapshot> foodCache = new CustomCache<>(60000, ROWS * 100);
+        CatalogVersion catalogVersion = new CatalogVersion();
+        foodService = new FoodServiceImpl(foodRepository, ingredientRepository,
+                context.getBean(CategoryRepository.class), foodCache, catalogVersion, new TrigramIndex(), List.of(),
+                new CachedFoodReader(foodRepository, foodCache, new CustomCache<>(60000, 1000), catalogVersion));
+    }
+
+    // Пустая таблица на каждой итерации: иначе построчная проверка имени дорожает с ростом таблицы
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.update("DELETE FROM food_ingredient");
+        jdbcTemplate.update("DELETE FROM food");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Food> importFoods() {
+        List<Food> foods = foods(invocation++);
+        return path.equals("bulk") ? foodService.saveFoodsBulk(foods) : perRow(foods);
+    }
+
+    // Прежний saveFoodsBulk без обновления Ingredient.foods, которое ещё и грузило эти коллекции
+    private List<Food> perRow(List<Food> foods) {
+        List<Food> saved = new ArrayList<>(foods.size());
+        for (Food food : foods) {
+            if (foodRepository.findByNameIgnoreCase(food.getName()).isPresent()) {
+                throw new IllegalStateException(food.getName());
+            }
+            food.setIngredients(new LinkedHashSet<>(ingredientRepository.findAllById(
+                    food.getIngredients().stream().map(Ingredient::getId).toList())));
+            saved.add(foodRepository.save(food));
+        }
+        return saved;
+    }
+
+    private List<Food> foods(int batch) {
+        List<Food> foods = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Set<Ingredient> ingredients = new LinkedHashSet<>();
+            for (int j = 0; j < 4; j++) {
+                ingredients.add(Ingredient.builder().id(ingredientIds.get((i * 7 + j * 31) % ingredientIds.size())).build());
+            }
+            foods.add(Food.builder()
+                    .name("Food " + batch + "-" + i)
+                    .price(BigDecimal.valueOf(500 + i % 2000, 2))
+                    .category(Category.builder().id(categoryId).name("Pizza").build())
+                    .ingredients(ingredients)
+                    .build());
+        }
+        return foods;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FoodBulkImportBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.delivery.service.impl;
+
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodImportResult;
+import com.example.delivery.service.FoodService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(org.mockito.junit.jupiter.MockitoExtension.class)
+class FoodImportServiceImplTest {
+
+    @Mock
+    private FoodService foodService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private FoodImportServiceImpl foodImportService;
+
+    @BeforeEach
+    void setUp() {
+        foodImportService = new FoodImportServiceImpl(foodService, objectMapper, entityManager);
+    }
+
+    // Все блюда пачки считаются созданными с id, равным номеру строки
+    private void createAll() {
+        when(foodService.importFoods(any())).thenAnswer(invocation -> {
+            Map<Long, Food> chunk = invocation.getArgument(0);
+            return chunk.keySet().stream().map(line -> FoodImportResult.created(line, line)).toList();
+        });
+    }
+
+    private List<JsonNode> importLines(String ndjson) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        foodImportService.importNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), out);
+        String response = out.toString(StandardCharsets.UTF_8);
+        assertThat(response).endsWith("\n");
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    @Test
+    void importNdjson_shouldReportMalformedLineAndKeepOthers() throws Exception {
+        createAll();
+
+        List<JsonNode> results = importLines("""
+                {"name":"Pizza","ingredients":[{"id":1}]}
+                {"name":"Soup",
+                
+                {"name":"Salad","ingredients":[{"id":2}]}
+                """);
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).get("line").asLong()).isEqualTo(1);
+        assertThat(results.get(0).get("id").asLong()).isEqualTo(1);
+        assertThat(results.get(1).get("line").asLong()).isEqualTo(2);
+        assertThat(results.get(1).get("error").asText()).startsWith("Malformed JSON");
+        assertThat(results.get(1).has("id")).isFalse();
+        assertThat(results.get(2).get("line").asLong()).isEqualTo(4);
+        verify(foodService).importFoods(argThat(chunk -> chunk.keySet().equals(Set.of(1L, 4L))
+                && chunk.get(4L).getName().equals("Salad")));
+    }
+
+    @Test
+    void importNdjson_shouldCommitInFixedSizeChunks() throws Exception {
+        createAll();
+        StringBuilder ndjson = new StringBuilder();
+        int rows = FoodServiceImpl.BULK_CHUNK_SIZE * 2 + 1;
+        for (int i = 0; i < rows; i++) {
+            ndjson.append("{\"name\":\"Food ").append(i).append("\",\"ingredients\":[{\"id\":1}]}\n");
+        }
+
+        List<JsonNode> results = importLines(ndjson.toString());
+
+        assertThat(results).hasSize(rows);
+        assertThat(results).extracting(result -> result.get("line").asLong()).isSorted();
+        verify(foodService, times(3)).importFoods(any());
+        // Контекст персистентности чистится после каждой пачки
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void importNdjson_malformedLines_shouldCountTowardsChunkSize() throws Exception {
+        createAll();
+        StringBuilder ndjson = new StringBuilder("{\"name\":\"Pizza\",\"ingredients\":[{\"id\":1}]}\n");
+        for (int i = 0; i < FoodServiceImpl.BULK_CHUNK_SIZE; i++) {
+            ndjson.append("{\"name\":\n");
+        }
+        ndjson.append("{\"name\":\"Salad\",\"ingredients\":[{\"id\":2}]}\n");
+
+        List<JsonNode> results = importLines(ndjson.toString());
+
+        assertThat(results).hasSize(FoodServiceImpl.BULK_CHUNK_SIZE + 2);
+        // Битые строки не копятся в памяти сверх пачки: блюда уходят двумя вызовами
+        verify(foodService).importFoods(argThat(chunk -> chunk.keySet().equals(Set.of(1L))));
+        verify(foodService).importFoods(argThat(chunk -> chunk.keySet().equals(Set.of(FoodServiceImpl.BULK_CHUNK_SIZE + 2L))));
+    }
+
+    @Test
+    void importNdjson_emptyBody_shouldWriteNothing() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        foodImportService.importNdjson(new ByteArrayInputStream(new byte[0]), out);
+
+        assertThat(out.size()).isZero();
+        verifyNoInteractions(foodService);
+    }
+}
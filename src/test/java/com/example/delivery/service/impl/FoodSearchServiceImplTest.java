@@ -0,0 +1,164 @@
+package com.example.delivery.service.impl;
+
+import com.example.delivery.exception.EntityNotFoundException;
+import com.example.delivery.exception.InvalidEntityException;
+import com.example.delivery.model.Category;
+import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodSnapshot;
+import com.example.delivery.model.Ingredient;
+import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.search.FacetIndex;
+import com.example.delivery.search.FacetPage;
+import com.example.delivery.search.FacetQuery;
+import com.example.delivery.search.FuzzyIndex;
+import com.example.delivery.search.IngredientIndex;
+import com.example.delivery.search.SimilarityIndex;
+import com.example.delivery.search.SuggestIndex;
+import com.example.delivery.utils.CatalogVersion;
+import com.example.delivery.utils.CustomCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class FoodSearchServiceImplTest {
+
+    @Mock
+    private FoodRepository foodRepository;
+
+    // Настоящие кэши: блюда кладутся в foodCache заранее, база нужна только на промахах
+    private final CustomCache<Long, FoodSnapshot> foodCache = new CustomCache<>(60000, 100);
+
+    private final CustomCache<String, long[]> foodSearchCache = new CustomCache<>(60000, 100);
+
+    private final FuzzyIndex fuzzyIndex = new FuzzyIndex(new VisitCounterServiceImpl());
+
+    private final IngredientIndex ingredientIndex = new IngredientIndex();
+
+    private final FacetIndex facetIndex = new FacetIndex();
+
+    private final SimilarityIndex similarityIndex = new SimilarityIndex();
+
+    private FoodSearchServiceImpl foodSearchService;
+
+    @BeforeEach
+    void setup() {
+        foodSearchService = new FoodSearchServiceImpl(fuzzyIndex, ingredientIndex, facetIndex, similarityIndex,
+                new SuggestIndex(new VisitCounterServiceImpl()),
+                new CachedFoodReader(foodRepository, foodCache, foodSearchCache, new CatalogVersion()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        foodCache.shutdown();
+        foodSearchCache.shutdown();
+    }
+
+    @Test
+    void searchFoodByNameFuzzy_shouldTolerateTypos() {
+        Food pizza = Food.builder().id(1L).name("Pizza").build();
+        fuzzyIndex.index(FoodSnapshot.of(pizza));
+        foodCache.put(1L, FoodSnapshot.of(pizza));
+
+        assertThat(foodSearchService.searchFoodByNameFuzzy("piza", 20)).extracting(Food::getId).containsExactly(1L);
+        assertThat(foodSearchService.searchFoodByNameFuzzy("burger", 20)).isEmpty();
+    }
+
+    @Test
+    void searchFoodByNameFuzzy_shouldRejectInvalidLimit() {
+        assertThatThrownBy(() -> foodSearchService.searchFoodByNameFuzzy("pizza", 0))
+                .isInstanceOf(InvalidEntityException.class);
+        assertThatThrownBy(() -> foodSearchService.searchFoodByNameFuzzy("pizza", FuzzyIndex.MAX_LIMIT + 1))
+                .isInstanceOf(InvalidEntityException.class);
+    }
+
+    @Test
+    void filterFoodsByIngredients_shouldRejectInvalidLimit() {
+        assertThatThrownBy(() -> foodSearchService.filterFoodsByIngredients(List.of(), List.of(), 0))
+                .isInstanceOf(InvalidEntityException.class);
+        assertThatThrownBy(() -> foodSearchService.filterFoodsByIngredients(List.of(), List.of(), IngredientIndex.MAX_LIMIT + 1))
+                .isInstanceOf(InvalidEntityException.class);
+    }
+
+    @Test
+    void browseFoods_shouldFilterSortAndPage() {
+        Category pizza = new Category(1L, "Pizza", null);
+        for (long id = 1; id <= 5; id++) {
+            Food food = Food.builder().id(id).name("Food " + id).price(BigDecimal.valueOf(id * 3))
+                    .category(id == 5 ? new Category(2L, "Soups", null) : pizza).build();
+            facetIndex.index(FoodSnapshot.of(food));
+            foodCache.put(id, FoodSnapshot.of(food));
+        }
+
+        FacetPage page = foodSearchService.browseFoods(1L, new BigDecimal("5.50"), new BigDecimal("12"),
+                List.of(), List.of(), FacetQuery.Sort.PRICE_DESC, 0, 2);
+
+        assertThat(page.total()).isEqualTo(3);
+        assertThat(page.content()).extracting(Food::getId).containsExactly(4L, 3L);
+        assertThat(foodSearchService.browseFoods(1L, new BigDecimal("5.50"), new BigDecimal("12"),
+                List.of(), List.of(), FacetQuery.Sort.PRICE_DESC, 1, 2).content())
+                .extracting(Food::getId).containsExactly(2L);
+    }
+
+    @Test
+    void browseFoods_shouldRejectInvalidParameters() {
+        assertThatThrownBy(() -> foodSearchService.browseFoods(null, null, null, List.of(), List.of(),
+                FacetQuery.Sort.ID, -1, 20)).isInstanceOf(InvalidEntityException.class);
+        assertThatThrownBy(() -> foodSearchService.browseFoods(null, null, null, List.of(), List.of(),
+                FacetQuery.Sort.ID, 0, FacetIndex.MAX_PAGE_SIZE + 1)).isInstanceOf(InvalidEntityException.class);
+        assertThatThrownBy(() -> foodSearchService.browseFoods(null, BigDecimal.TEN, BigDecimal.ONE, List.of(), List.of(),
+                FacetQuery.Sort.ID, 0, 20)).isInstanceOf(InvalidEntityException.class);
+    }
+
+    @Test
+    void browseFoods_shouldRejectOverflowingPageAndPrices() {
+        assertThatThrownBy(() -> foodSearchService.browseFoods(null, null, null, List.of(), List.of(),
+                FacetQuery.Sort.ID, Integer.MAX_VALUE, 20)).isInstanceOf(InvalidEntityException.class);
+        assertThatThrownBy(() -> foodSearchService.browseFoods(null, null, new BigDecimal("1e30"), List.of(), List.of(),
+                FacetQuery.Sort.ID, 0, 20)).isInstanceOf(InvalidEntityException.class);
+        assertThatThrownBy(() -> foodSearchService.browseFoods(null, new BigDecimal("-1"), null, List.of(), List.of(),
+                FacetQuery.Sort.ID, 0, 20)).isInstanceOf(InvalidEntityException.class);
+    }
+
+    @Test
+    void getSimilarFoods_shouldReturnFoodsSharingIngredients() {
+        Ingredient tomato = new Ingredient(1L, "Tomato", null);
+        Ingredient cheese = new Ingredient(2L, "Cheese", null);
+        Food pizza = Food.builder().id(1L).name("Pizza")
+                .ingredients(Set.of(tomato, cheese)).build();
+        Food calzone = Food.builder().id(2L).name("Calzone")
+                .ingredients(Set.of(tomato, cheese)).build();
+        Food salad = Food.builder().id(3L).name("Salad")
+                .ingredients(Set.of(new Ingredient(3L, "Lettuce", null))).build();
+        similarityIndex.rebuild(List.of(FoodSnapshot.of(pizza), FoodSnapshot.of(calzone), FoodSnapshot.of(salad)));
+        foodCache.put(2L, FoodSnapshot.of(calzone));
+
+        assertThat(foodSearchService.getSimilarFoods(1L, 10)).extracting(Food::getId).containsExactly(2L);
+    }
+
+    @Test
+    void getSimilarFoods_shouldThrowIfNotFoundOrInvalidK() {
+        assertThatThrownBy(() -> foodSearchService.getSimilarFoods(1L, 10)).isInstanceOf(EntityNotFoundException.class);
+        assertThatThrownBy(() -> foodSearchService.getSimilarFoods(1L, 0)).isInstanceOf(InvalidEntityException.class);
+        assertThatThrownBy(() -> foodSearchService.getSimilarFoods(1L, SimilarityIndex.MAX_K + 1))
+                .isInstanceOf(InvalidEntityException.class);
+    }
+
+    @Test
+    void suggest_shouldRejectInvalidLimitAndSkipBlankPrefix() {
+        assertThat(foodSearchService.suggest("  ", 5)).isEmpty();
+        assertThatThrownBy(() -> foodSearchService.suggest("pi", 0))
+                .isInstanceOf(InvalidEntityException.class);
+        assertThatThrownBy(() -> foodSearchService.suggest("pi", SuggestIndex.MAX_LIMIT + 1))
+                .isInstanceOf(InvalidEntityException.class);
+    }
+}
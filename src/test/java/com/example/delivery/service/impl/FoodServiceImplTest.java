@@ -5,17 +5,32 @@ import com.example.delivery.exception.EntityNotFoundException;
 import com.example.delivery.exception.InvalidEntityException;
 import com.example.delivery.model.Category;
 import com.example.delivery.model.Food;
+import com.example.delivery.model.FoodImportResult;
+import com.example.delivery.model.FoodSnapshot;
 import com.example.delivery.model.Ingredient;
+import com.example.delivery.model.KeysetPage;
+import com.example.delivery.repository.CategoryRepository;
 import com.example.delivery.repository.FoodRepository;
 import com.example.delivery.repository.IngredientRepository;
+import com.example.delivery.search.FacetIndex;
+import com.example.delivery.search.FuzzyIndex;
+import com.example.delivery.search.IngredientIndex;
+import com.example.delivery.search.SimilarityIndex;
+import com.example.delivery.search.SuggestIndex;
+import com.example.delivery.search.TrigramIndex;
+import com.example.delivery.utils.CatalogVersion;
 import com.example.delivery.utils.CustomCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,40 +45,87 @@ class FoodServiceImplTest {
     private IngredientRepository ingredientRepository;
 
     @Mock
-    private CustomCache<Long, Food> foodCache;
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private CustomCache<Long, FoodSnapshot> foodCache;
+
+    private final CustomCache<String, long[]> foodSearchCache = new CustomCache<>(60000, 100);
+
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+
+    private final FuzzyIndex fuzzyIndex = new FuzzyIndex(new VisitCounterServiceImpl());
+
+    private final IngredientIndex ingredientIndex = new IngredientIndex();
+
+    private final FacetIndex facetIndex = new FacetIndex();
+
+    private final SimilarityIndex similarityIndex = new SimilarityIndex();
 
-    @InjectMocks
     private FoodServiceImpl foodService;
 
+    private FoodSearchServiceImpl foodSearchService;
+
     private Food testFood;
     private Ingredient testIngredient;
 
     @BeforeEach
     void setup() {
+        CachedFoodReader cachedFoodReader = new CachedFoodReader(foodRepository, foodCache, foodSearchCache, catalogVersion);
+        foodService = new FoodServiceImpl(foodRepository, ingredientRepository, categoryRepository, foodCache,
+                catalogVersion, trigramIndex,
+                List.of(trigramIndex, fuzzyIndex, ingredientIndex, facetIndex, similarityIndex), cachedFoodReader);
+        // Поиск по индексам живёт в своём сервисе, но индексы у них общие
+        foodSearchService = new FoodSearchServiceImpl(fuzzyIndex, ingredientIndex, facetIndex, similarityIndex,
+                new SuggestIndex(new VisitCounterServiceImpl()), cachedFoodReader);
+
         testIngredient = new Ingredient();
         testIngredient.setId(1L);
         testIngredient.setFoods(new ArrayList<>());
 
+        // Кэш — мок: getAll берёт попадания из get, а промахи отдаёт loader, как настоящий кэш
+        lenient().when(foodCache.getAll(any(), any())).thenAnswer(invocation -> {
+            Function<List<Long>, Map<Long, FoodSnapshot>> loader = invocation.getArgument(1);
+            Map<Long, FoodSnapshot> found = new HashMap<>();
+            List<Long> missing = new ArrayList<>();
+            for (Long id : invocation.<List<Long>>getArgument(0)) {
+                FoodSnapshot snapshot = foodCache.get(id);
+                if (snapshot != null) {
+                    found.put(id, snapshot);
+                } else {
+                    missing.add(id);
+                }
+            }
+            if (!missing.isEmpty()) {
+                found.putAll(loader.apply(missing));
+            }
+            return found;
+        });
+
         testFood = new Food();
         testFood.setId(1L);
         testFood.setName("Pizza");
-        testFood.setIngredients(new ArrayList<>(List.of(testIngredient)));
+        testFood.setIngredients(new LinkedHashSet<>(List.of(testIngredient)));
     }
 
     @Test
     void getFoodById_shouldReturnCachedFood() {
-        when(foodCache.get(1L)).thenReturn(testFood);
+        when(foodCache.get(eq(1L), any())).thenReturn(FoodSnapshot.of(testFood));
 
         Food result = foodService.getFoodById(1L);
 
-        assertThat(result).isEqualTo(testFood);
-        verify(foodRepository, never()).findById(any());
+        assertThat(result.getId()).isEqualTo(1L);
+        assertThat(result.getName()).isEqualTo("Pizza");
+        assertThat(result.getIngredients()).extracting(Ingredient::getId).containsExactly(1L);
+        verify(foodRepository, never()).findWithDetailsById(any());
     }
 
     @Test
     void getFoodById_shouldThrowIfNotFound() {
-        when(foodCache.get(1L)).thenReturn(null);
-        when(foodRepository.findById(1L)).thenReturn(Optional.empty());
+        when(foodCache.get(eq(1L), any())).thenAnswer(inv -> inv.<Function<Long, FoodSnapshot>>getArgument(1).apply(1L));
+        when(foodRepository.findWithDetailsById(1L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> foodService.getFoodById(1L))
                 .isInstanceOf(EntityNotFoundException.class);
@@ -89,8 +151,6 @@ class FoodServiceImplTest {
     void saveFood_shouldThrowIfIngredientsIsNull() {
         testFood.setIngredients(null);
 
-        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
-
         assertThatThrownBy(() -> foodService.saveFood(testFood))
                 .isInstanceOf(NullPointerException.class); // or custom exception if preferred
     }
@@ -100,12 +160,37 @@ class FoodServiceImplTest {
         when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
         when(ingredientRepository.findAllById(List.of(1L))).thenReturn(List.of(testIngredient));
         when(foodRepository.save(any())).thenReturn(testFood);
-        when(ingredientRepository.saveAll(any())).thenReturn(List.of(testIngredient));
 
         Food result = foodService.saveFood(testFood);
 
         assertThat(result).isEqualTo(testFood);
-        verify(foodCache).put(testFood.getId(), testFood);
+        verify(foodCache).put(eq(testFood.getId()), any(FoodSnapshot.class));
+        verify(ingredientRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void saveFood_shouldCacheResolvedCategoryName() {
+        testFood.setCategory(Category.builder().id(3L).build());
+        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
+        when(ingredientRepository.findAllById(List.of(1L))).thenReturn(List.of(testIngredient));
+        when(categoryRepository.findById(3L)).thenReturn(Optional.of(new Category(3L, "Fast Food", null)));
+        when(foodRepository.save(any())).thenReturn(testFood);
+
+        foodService.saveFood(testFood);
+
+        verify(foodCache).put(eq(1L), argThat(snapshot -> "Fast Food".equals(snapshot.getCategoryName())));
+    }
+
+    @Test
+    void saveFood_shouldThrowIfCategoryNotFound() {
+        testFood.setCategory(Category.builder().id(3L).build());
+        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
+        when(ingredientRepository.findAllById(List.of(1L))).thenReturn(List.of(testIngredient));
+        when(categoryRepository.findById(3L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> foodService.saveFood(testFood))
+                .isInstanceOf(EntityNotFoundException.class);
+        verify(foodRepository, never()).save(any());
     }
 
     @Test
@@ -135,7 +220,7 @@ class FoodServiceImplTest {
         Food result = foodService.addIngredientToFood(1L, 2L);
 
         assertThat(result.getIngredients()).hasSize(2);
-        verify(foodCache).put(1L, result);
+        verify(foodCache).put(eq(1L), any(FoodSnapshot.class));
     }
 
     @Test
@@ -147,6 +232,42 @@ class FoodServiceImplTest {
                 .isInstanceOf(EntityNotFoundException.class);
     }
 
+    @Test
+    void replaceIngredients_shouldApplyDiffAndRefreshCacheOnce() {
+        Ingredient cheese = new Ingredient(2L, "Cheese", null);
+        when(foodRepository.findById(1L)).thenReturn(Optional.of(testFood));
+        when(ingredientRepository.findAllById(Set.of(2L))).thenReturn(List.of(cheese));
+        when(foodRepository.save(any())).thenReturn(testFood);
+
+        Food result = foodService.replaceIngredients(1L, Set.of(2L));
+
+        assertThat(result.getIngredients()).containsExactly(cheese);
+        verify(foodCache, times(1)).put(eq(1L), any(FoodSnapshot.class));
+    }
+
+    @Test
+    void replaceIngredients_unchanged_shouldNotLoadIngredients() {
+        when(foodRepository.findById(1L)).thenReturn(Optional.of(testFood));
+        when(foodRepository.save(any())).thenReturn(testFood);
+
+        foodService.replaceIngredients(1L, Set.of(1L));
+
+        assertThat(testFood.getIngredients()).containsExactly(testIngredient);
+        verify(ingredientRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void replaceIngredients_shouldThrowIfIngredientNotFoundAndKeepFood() {
+        when(foodRepository.findById(1L)).thenReturn(Optional.of(testFood));
+        when(ingredientRepository.findAllById(Set.of(2L))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> foodService.replaceIngredients(1L, Set.of(2L)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("2");
+        assertThat(testFood.getIngredients()).containsExactly(testIngredient);
+        verify(foodRepository, never()).save(any());
+    }
+
     @Test
     void updateFood_shouldUpdateFields() {
         Food updated = new Food();
@@ -159,6 +280,7 @@ class FoodServiceImplTest {
         updated.setCategory(newCategory);
 
         when(foodRepository.findById(1L)).thenReturn(Optional.of(testFood));
+        when(categoryRepository.findById(1L)).thenReturn(Optional.of(newCategory));
         when(foodRepository.save(any())).thenReturn(testFood);
 
         Food result = foodService.updateFood(1L, updated);
@@ -166,7 +288,7 @@ class FoodServiceImplTest {
         assertThat(result.getName()).isEqualTo("Updated Pizza");
         assertThat(result.getPrice()).isEqualByComparingTo("9.99");
         assertThat(result.getCategory()).isEqualTo(newCategory);
-        verify(foodCache).put(1L, result);
+        verify(foodCache).put(eq(1L), any(FoodSnapshot.class));
     }
 
     @Test
@@ -179,41 +301,125 @@ class FoodServiceImplTest {
         Food result = foodService.updateFood(1L, empty);
 
         assertThat(result).isEqualTo(testFood);
-        verify(foodCache).put(1L, result);
+        verify(foodCache).put(eq(1L), any(FoodSnapshot.class));
     }
 
     @Test
     void getAllFood_shouldReturnAll() {
-        when(foodRepository.findAll()).thenReturn(List.of(testFood));
+        when(foodRepository.findAllWithDetails()).thenReturn(List.of(testFood));
 
         List<Food> result = foodService.getAllFood();
 
         assertThat(result).containsExactly(testFood);
     }
 
+    @Test
+    void getFoodPage_fullPage_shouldReturnCursorOfLastId() {
+        when(foodRepository.findIdsAfter(0L, Limit.of(1))).thenReturn(List.of(1L));
+        when(foodRepository.findAllById(List.of(1L))).thenReturn(List.of(testFood));
+
+        KeysetPage<Food> page = foodService.getFoodPage(null, 1);
+
+        assertThat(page.content()).extracting(Food::getId).containsExactly(1L);
+        assertThat(page.next()).isEqualTo(1L);
+    }
+
+    @Test
+    void getFoodPage_lastPage_shouldReturnNoCursor() {
+        when(foodRepository.findIdsAfter(1L, Limit.of(10))).thenReturn(List.of());
+
+        KeysetPage<Food> page = foodService.getFoodPage(1L, 10);
+
+        assertThat(page.content()).isEmpty();
+        assertThat(page.next()).isNull();
+    }
+
+    @Test
+    void getFoodPage_invalidLimit_shouldThrow() {
+        assertThatThrownBy(() -> foodService.getFoodPage(null, KeysetPage.MAX_LIMIT + 1))
+                .isInstanceOf(InvalidEntityException.class);
+        verifyNoInteractions(foodRepository);
+    }
+
     @Test
     void searchFoodByName_shouldReturnMatchingFoods() {
-        when(foodRepository.findByNameContainingIgnoreCase("piz")).thenReturn(List.of(testFood));
+        trigramIndex.index(FoodSnapshot.of(testFood));
+        when(foodRepository.findAllById(List.of(1L))).thenReturn(List.of(testFood));
 
         List<Food> result = foodService.searchFoodByName("piz");
 
-        assertThat(result).containsExactly(testFood);
+        assertThat(result).extracting(Food::getId, Food::getName).containsExactly(tuple(1L, "Pizza"));
+        verify(foodCache).getAll(eq(List.of(1L)), any());
+        verify(foodRepository, never()).findByNameContainingIgnoreCase(any());
+    }
+
+    @Test
+    void searchFoodByName_shouldFollowWritesThroughIndex() {
+        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
+        when(ingredientRepository.findAllById(List.of(1L))).thenReturn(List.of(testIngredient));
+        when(foodRepository.save(testFood)).thenReturn(testFood);
+        when(foodCache.get(1L)).thenReturn(FoodSnapshot.of(testFood));
+        foodService.saveFood(testFood);
+
+        assertThat(foodService.searchFoodByName("izz")).extracting(Food::getId).containsExactly(1L);
+
+        when(foodRepository.existsById(1L)).thenReturn(true);
+        foodService.deleteFood(1L);
+
+        assertThat(foodService.searchFoodByName("izz")).isEmpty();
+    }
+
+    @Test
+    void filterFoodsByIngredients_shouldFollowIngredientWrites() {
+        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
+        when(ingredientRepository.findAllById(List.of(1L))).thenReturn(new ArrayList<>(List.of(testIngredient)));
+        when(foodRepository.save(testFood)).thenReturn(testFood);
+        when(foodCache.get(1L)).thenAnswer(invocation -> FoodSnapshot.of(testFood));
+        foodService.saveFood(testFood);
+
+        assertThat(foodSearchService.filterFoodsByIngredients(List.of(1L), List.of(), 100))
+                .extracting(Food::getId).containsExactly(1L);
+        assertThat(foodSearchService.filterFoodsByIngredients(List.of(), List.of(1L), 100)).isEmpty();
+
+        when(foodRepository.findById(1L)).thenReturn(Optional.of(testFood));
+        foodService.clearIngredientsFromFood(1L);
+
+        assertThat(foodSearchService.filterFoodsByIngredients(List.of(1L), List.of(), 100)).isEmpty();
+        assertThat(foodSearchService.filterFoodsByIngredients(List.of(), List.of(1L), 100))
+                .extracting(Food::getId).containsExactly(1L);
     }
 
     @Test
     void searchFoodByCategoryName_shouldReturnMatchingFoods() {
-        when(foodRepository.findByCategoryNameContainingIgnoreCase("fast")).thenReturn(List.of(testFood));
+        when(foodRepository.findIdsByCategoryNameContainingIgnoreCase("fast")).thenReturn(List.of(1L));
+        when(foodCache.get(1L)).thenReturn(FoodSnapshot.of(testFood));
 
         List<Food> result = foodService.searchFoodByCategoryName("fast");
 
-        assertThat(result).containsExactly(testFood);
+        assertThat(result).extracting(Food::getId).containsExactly(1L);
+        verify(foodRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void searchFoodByCategoryName_shouldReuseResultUntilCatalogChanges() {
+        when(foodRepository.findIdsByCategoryNameContainingIgnoreCase("fast")).thenReturn(List.of(1L));
+        when(foodCache.get(1L)).thenReturn(FoodSnapshot.of(testFood));
+
+        foodService.searchFoodByCategoryName("fast");
+        foodService.searchFoodByCategoryName("FAST");
+        verify(foodRepository, times(1)).findIdsByCategoryNameContainingIgnoreCase("fast");
+
+        when(foodRepository.existsById(1L)).thenReturn(true);
+        foodService.deleteFood(1L);
+        foodService.searchFoodByCategoryName("fast");
+        verify(foodRepository, times(2)).findIdsByCategoryNameContainingIgnoreCase("fast");
     }
 
     @Test
     void saveFoodsBulk_shouldThrowIfNameEmpty() {
         Food badFood = new Food();
         badFood.setName("  ");
-        badFood.setIngredients(List.of(testIngredient));
+        badFood.setIngredients(Set.of(testIngredient));
 
         assertThatThrownBy(() -> foodService.saveFoodsBulk(List.of(badFood)))
                 .isInstanceOf(InvalidEntityException.class);
@@ -223,7 +429,7 @@ class FoodServiceImplTest {
     void saveFoodsBulk_shouldThrowIfNameNull() {
         Food badFood = new Food();
         badFood.setName(null);
-        badFood.setIngredients(List.of(testIngredient));
+        badFood.setIngredients(Set.of(testIngredient));
 
         assertThatThrownBy(() -> foodService.saveFoodsBulk(List.of(badFood)))
                 .isInstanceOf(InvalidEntityException.class);
@@ -231,31 +437,44 @@ class FoodServiceImplTest {
 
     @Test
     void saveFoodsBulk_shouldThrowIfDuplicate() {
-        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.of(new Food()));
-        testFood.setIngredients(List.of(testIngredient));
+        when(foodRepository.findExistingNamesIgnoreCase(Set.of("pizza"))).thenReturn(List.of("Pizza"));
+        testFood.setIngredients(Set.of(testIngredient));
+        testFood.setCategory(Category.builder().id(3L).build());
 
         assertThatThrownBy(() -> foodService.saveFoodsBulk(List.of(testFood)))
                 .isInstanceOf(DuplicateEntityException.class);
+        verify(foodRepository, never()).saveAll(any());
     }
 
     @Test
-    void saveFoodsBulk_shouldThrowIfNoIngredients() {
-        testFood.setIngredients(List.of());
+    void saveFoodsBulk_shouldThrowIfDuplicateWithinImport() {
+        testFood.setCategory(Category.builder().id(3L).build());
+        Food sameName = Food.builder().name("PIZZA").category(testFood.getCategory())
+                .ingredients(Set.of(testIngredient)).build();
 
-        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> foodService.saveFoodsBulk(List.of(testFood, sameName)))
+                .isInstanceOf(DuplicateEntityException.class);
+        verifyNoInteractions(foodRepository);
+    }
+
+    @Test
+    void saveFoodsBulk_shouldThrowIfNoIngredients() {
+        testFood.setCategory(Category.builder().id(3L).build());
+        testFood.setIngredients(Set.of());
 
         assertThatThrownBy(() -> foodService.saveFoodsBulk(List.of(testFood)))
-                .isInstanceOf(InvalidEntityException.class);
+                .isInstanceOf(InvalidEntityException.class)
+                .hasMessageContaining("ingredient");
     }
 
     @Test
     void saveFoodsBulk_shouldThrowIfIngredientsNull() {
+        testFood.setCategory(Category.builder().id(3L).build());
         testFood.setIngredients(null);
 
-        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
-
         assertThatThrownBy(() -> foodService.saveFoodsBulk(List.of(testFood)))
-                .isInstanceOf(InvalidEntityException.class);
+                .isInstanceOf(InvalidEntityException.class)
+                .hasMessageContaining("ingredient");
     }
 
     @Test
@@ -263,24 +482,138 @@ class FoodServiceImplTest {
         Ingredient nullIdIngredient = new Ingredient();
         nullIdIngredient.setId(null);
 
-        testFood.setIngredients(List.of(nullIdIngredient));
+        testFood.setCategory(Category.builder().id(3L).build());
+        testFood.setIngredients(Set.of(nullIdIngredient));
 
-        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> foodService.saveFoodsBulk(List.of(testFood)))
+                .isInstanceOf(InvalidEntityException.class)
+                .hasMessageContaining("ingredient");
+    }
+
+    @Test
+    void saveFoodsBulk_shouldThrowIfCategoryMissing() {
+        assertThatThrownBy(() -> foodService.saveFoodsBulk(List.of(testFood)))
+                .isInstanceOf(InvalidEntityException.class)
+                .hasMessageContaining("category");
+    }
+
+    @Test
+    void saveFoodsBulk_shouldRejectUnknownCategoryBeforeWriting() {
+        testFood.setCategory(Category.builder().id(9L).build());
+        when(foodRepository.findExistingNamesIgnoreCase(Set.of("pizza"))).thenReturn(List.of());
+        when(categoryRepository.findAllById(Set.of(9L))).thenReturn(List.of());
 
         assertThatThrownBy(() -> foodService.saveFoodsBulk(List.of(testFood)))
-                .isInstanceOf(InvalidEntityException.class);
+                .isInstanceOf(EntityNotFoundException.class);
+        verify(foodRepository, never()).saveAll(any());
     }
 
     @Test
     void saveFoodsBulk_shouldSaveSuccessfully() {
-        when(foodRepository.findByNameIgnoreCase("Pizza")).thenReturn(Optional.empty());
-        when(ingredientRepository.findAllById(List.of(1L))).thenReturn(List.of(testIngredient));
-        when(foodRepository.save(any())).thenReturn(testFood);
-        when(ingredientRepository.saveAll(any())).thenReturn(List.of(testIngredient));
+        testFood.setCategory(Category.builder().id(3L).build());
+        when(foodRepository.findExistingNamesIgnoreCase(Set.of("pizza"))).thenReturn(List.of());
+        when(categoryRepository.findAllById(Set.of(3L))).thenReturn(List.of(new Category(3L, "Fast Food", null)));
+        when(ingredientRepository.findAllById(Set.of(1L))).thenReturn(List.of(testIngredient));
+        when(foodRepository.saveAll(List.of(testFood))).thenReturn(List.of(testFood));
 
         List<Food> result = foodService.saveFoodsBulk(List.of(testFood));
 
         assertThat(result).hasSize(1);
-        verify(foodCache).put(testFood.getId(), testFood);
+        verify(foodCache).put(eq(testFood.getId()), any(FoodSnapshot.class));
+        verify(foodRepository, never()).findByNameIgnoreCase(any());
+    }
+
+    @Test
+    void saveFoodsBulk_shouldSaveInChunksWithOneIngredientLookup() {
+        List<Food> foods = new ArrayList<>();
+        for (int i = 0; i < FoodServiceImpl.BULK_CHUNK_SIZE + 1; i++) {
+            foods.add(Food.builder().name("Food " + i).category(Category.builder().id(3L).build())
+                    .ingredients(Set.of(testIngredient)).build());
+        }
+        when(foodRepository.findExistingNamesIgnoreCase(any())).thenReturn(List.of());
+        when(categoryRepository.findAllById(Set.of(3L))).thenReturn(List.of(new Category(3L, "Fast Food", null)));
+        when(ingredientRepository.findAllById(Set.of(1L))).thenReturn(List.of(testIngredient));
+        AtomicLong ids = new AtomicLong();
+        when(foodRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Food> chunk = invocation.getArgument(0);
+            chunk.forEach(food -> food.setId(ids.incrementAndGet()));
+            return chunk;
+        });
+
+        List<Food> result = foodService.saveFoodsBulk(foods);
+
+        assertThat(result).hasSize(FoodServiceImpl.BULK_CHUNK_SIZE + 1);
+        assertThat(result.get(0).getIngredients()).containsExactly(testIngredient);
+        verify(foodRepository, times(2)).saveAll(any());
+        verify(ingredientRepository).findAllById(any());
+        verify(categoryRepository).findAllById(any());
+    }
+
+    @Test
+    void importFoods_shouldRejectBadRowsAndSaveTheRest() {
+        Category fastFood = Category.builder().id(3L).build();
+        testFood.setCategory(fastFood);
+        Food noIngredients = Food.builder().name("Soup").category(fastFood).ingredients(Set.of()).build();
+        Food existing = Food.builder().name("Burger").category(fastFood).ingredients(Set.of(testIngredient)).build();
+        Food repeated = Food.builder().name("PIZZA").category(fastFood).ingredients(Set.of(testIngredient)).build();
+        Food noCategory = Food.builder().name("Salad").ingredients(Set.of(testIngredient)).build();
+        Food unknownCategory = Food.builder().name("Pasta").category(Category.builder().id(9L).build())
+                .ingredients(Set.of(testIngredient)).build();
+        Map<Long, Food> chunk = new LinkedHashMap<>();
+        chunk.put(1L, testFood);
+        chunk.put(2L, noIngredients);
+        chunk.put(3L, existing);
+        chunk.put(5L, repeated);
+        chunk.put(6L, noCategory);
+        chunk.put(7L, unknownCategory);
+        when(foodRepository.findExistingNamesIgnoreCase(Set.of("pizza", "burger", "pasta")))
+                .thenReturn(List.of("Burger"));
+        when(categoryRepository.findAllById(Set.of(3L, 9L))).thenReturn(List.of(new Category(3L, "Fast Food", null)));
+        when(ingredientRepository.findAllById(Set.of(1L))).thenReturn(List.of(testIngredient));
+        when(foodRepository.saveAll(List.of(testFood))).thenReturn(List.of(testFood));
+
+        List<FoodImportResult> results = foodService.importFoods(chunk);
+
+        assertThat(results).extracting(FoodImportResult::line).containsExactly(1L, 2L, 3L, 5L, 6L, 7L);
+        assertThat(results.get(0)).isEqualTo(FoodImportResult.created(1, 1));
+        assertThat(results.get(1).error()).contains("ingredient");
+        assertThat(results.get(2).error()).contains("Burger");
+        assertThat(results.get(3).error()).contains("PIZZA");
+        assertThat(results.get(4).error()).contains("category");
+        assertThat(results.get(5).error()).contains("Category with id 9");
+        verify(foodCache).put(eq(1L), argThat(snapshot -> "Fast Food".equals(snapshot.getCategoryName())));
+    }
+
+    @Test
+    void importFoods_rolledBackChunk_shouldFailEveryRowOfIt() {
+        Category fastFood = Category.builder().id(3L).build();
+        testFood.setCategory(fastFood);
+        Food salad = Food.builder().name("Salad").category(fastFood).ingredients(Set.of(testIngredient)).build();
+        Map<Long, Food> chunk = new LinkedHashMap<>();
+        chunk.put(1L, testFood);
+        chunk.put(2L, salad);
+        when(foodRepository.findExistingNamesIgnoreCase(any())).thenReturn(List.of());
+        when(categoryRepository.findAllById(Set.of(3L))).thenReturn(List.of(new Category(3L, "Fast Food", null)));
+        when(ingredientRepository.findAllById(Set.of(1L))).thenReturn(List.of(testIngredient));
+        when(foodRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("price is null"));
+
+        List<FoodImportResult> results = foodService.importFoods(chunk);
+
+        assertThat(results).extracting(FoodImportResult::line).containsExactly(1L, 2L);
+        assertThat(results).allSatisfy(result -> {
+            assertThat(result.id()).isNull();
+            assertThat(result.error()).contains("price is null");
+        });
+        verifyNoInteractions(foodCache);
+    }
+
+    @Test
+    void getFoodById_shouldNotExposeCachedStateToCallers() {
+        FoodSnapshot snapshot = FoodSnapshot.of(testFood);
+        when(foodCache.get(eq(1L), any())).thenReturn(snapshot);
+
+        foodService.getFoodById(1L).getIngredients().clear();
+
+        assertThat(foodService.getFoodById(1L).getIngredients()).hasSize(1);
     }
 }
@@ -1,14 +1,18 @@
 package com.example.delivery.service.impl;
 
 import com.example.delivery.exception.EntityNotFoundException;
-import com.example.delivery.model.Food;
+import com.example.delivery.exception.InvalidEntityException;
+import com.example.delivery.model.FoodSnapshot;
 import com.example.delivery.model.Ingredient;
-import com.example.delivery.repository.FoodRepository;
+import com.example.delivery.model.KeysetPage;
 import com.example.delivery.repository.IngredientRepository;
+import com.example.delivery.search.FoodIndex;
+import com.example.delivery.utils.CustomCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
+import org.springframework.data.domain.Limit;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.*;
@@ -21,7 +25,13 @@ class IngredientServiceImplTest {
     private IngredientRepository ingredientRepository;
 
     @Mock
-    private FoodRepository foodRepository;
+    private CustomCache<Long, FoodSnapshot> foodCache;
+
+    @Mock
+    private FoodIndex foodIndex;
+
+    @Spy
+    private List<FoodIndex> foodIndexes = new ArrayList<>();
 
     @InjectMocks
     private IngredientServiceImpl ingredientService;
@@ -30,6 +40,7 @@ class IngredientServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        foodIndexes.add(foodIndex);
         testIngredient = new Ingredient();
         testIngredient.setId(1L);
         testIngredient.setName("Tomato");
@@ -44,6 +55,26 @@ class IngredientServiceImplTest {
         assertThat(result).containsExactly(testIngredient);
     }
 
+    @Test
+    void getIngredientPage_shouldReturnCursorOnlyForFullPage() {
+        when(ingredientRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(1))).thenReturn(List.of(testIngredient));
+        when(ingredientRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(1))).thenReturn(List.of());
+
+        KeysetPage<Ingredient> first = ingredientService.getIngredientPage(null, 1);
+        KeysetPage<Ingredient> last = ingredientService.getIngredientPage(first.next(), 1);
+
+        assertThat(first.content()).containsExactly(testIngredient);
+        assertThat(first.next()).isEqualTo(1L);
+        assertThat(last.content()).isEmpty();
+        assertThat(last.next()).isNull();
+    }
+
+    @Test
+    void getIngredientPage_invalidLimit_shouldThrow() {
+        assertThatThrownBy(() -> ingredientService.getIngredientPage(null, 0))
+                .isInstanceOf(InvalidEntityException.class);
+    }
+
     @Test
     void getIngredientById_shouldReturnIngredient() {
         when(ingredientRepository.findById(1L)).thenReturn(Optional.of(testIngredient));
@@ -92,27 +123,29 @@ class IngredientServiceImplTest {
     }
 
     @Test
-    void deleteIngredient_shouldUnlinkFromFoodsAndDelete() {
-        Food food = new Food();
-        food.setId(1L);
-        food.setIngredients(new ArrayList<>(List.of(testIngredient)));
-
-        testIngredient.setFoods(new ArrayList<>(List.of(food)));
-
-        when(ingredientRepository.findById(1L)).thenReturn(Optional.of(testIngredient));
+    void deleteIngredient_shouldUnlinkBySetAndInvalidateOnlyAffectedFoods() {
+        when(ingredientRepository.findFoodIdsByIngredientId(1L)).thenReturn(List.of(3L, 5L));
+        when(ingredientRepository.deleteRowById(1L)).thenReturn(1);
 
         ingredientService.deleteIngredient(1L);
 
-        assertThat(food.getIngredients()).doesNotContain(testIngredient);
-        verify(foodRepository).saveAll(List.of(food));
-        verify(ingredientRepository).delete(testIngredient);
+        InOrder order = inOrder(ingredientRepository);
+        order.verify(ingredientRepository).findFoodIdsByIngredientId(1L);
+        order.verify(ingredientRepository).deleteFoodLinksByIngredientId(1L);
+        order.verify(ingredientRepository).deleteRowById(1L);
+        verify(foodCache).remove(3L);
+        verify(foodCache).remove(5L);
+        verifyNoMoreInteractions(foodCache);
+        verify(foodIndex).removeIngredient(1L, new long[]{3L, 5L});
     }
 
     @Test
     void deleteIngredient_shouldThrowIfNotFound() {
-        when(ingredientRepository.findById(1L)).thenReturn(Optional.empty());
+        when(ingredientRepository.findFoodIdsByIngredientId(1L)).thenReturn(List.of());
+        when(ingredientRepository.deleteRowById(1L)).thenReturn(0);
 
         assertThatThrownBy(() -> ingredientService.deleteIngredient(1L))
                 .isInstanceOf(EntityNotFoundException.class);
+        verifyNoInteractions(foodCache, foodIndex);
     }
 }
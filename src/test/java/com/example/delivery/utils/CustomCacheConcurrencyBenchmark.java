@@ -0,0 +1,84 @@
+package com.example.delivery.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Смешанная нагрузка (90% чтений, 10% записей) на кэш из 1000 блюд:
+ * прежний synchronized LinkedHashMap против CustomCache. Запускается на 1, 8 и 32 потоках.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomCacheConcurrencyBenchmark {
+
+    private static final int MAX_SIZE = 1000;
+    private static final int KEY_SPACE = 1200;
+
+    private SynchronizedLruCache<Long, String> synchronizedCache;
+    private CustomCache<Long, String> customCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        synchronizedCache = new SynchronizedLruCache<>(MAX_SIZE);
+        customCache = new CustomCache<>(60000, MAX_SIZE);
+        for (long key = 0; key < MAX_SIZE; key++) {
+            synchronizedCache.put(key, "Food " + key);
+            customCache.put(key, "Food " + key);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        customCache.shutdown();
+    }
+
+    @Benchmark
+    public String synchronizedLinkedHashMap() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long key = random.nextLong(KEY_SPACE);
+        if (random.nextInt(10) == 0) {
+            synchronizedCache.put(key, "Food");
+            return null;
+        }
+        return synchronizedCache.get(key);
+    }
+
+    @Benchmark
+    public String customCache() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long key = random.nextLong(KEY_SPACE);
+        if (random.nextInt(10) == 0) {
+            customCache.put(key, "Food");
+            return null;
+        }
+        return customCache.get(key);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 8, 32}) {
+            new Runner(new OptionsBuilder()
+                    .include(CustomCacheConcurrencyBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.delivery.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Воспроизводит синтетическую трассу витрины: запросы к блюдам по закону Ципфа,
+ * перемежающиеся полными обходами каталога (GET /food, админ листает ID подряд).
+ */
+class CustomCacheHitRatioTest {
+
+    private static final int CACHE_SIZE = 500;
+    private static final int CATALOG_SIZE = 20_000;
+    private static final int REQUESTS = 300_000;
+
+    @Test
+    void tinyLfu_shouldSurviveScansBetterThanLru() {
+        double lru = replay(EvictionPolicy.LRU);
+        double tinyLfu = replay(EvictionPolicy.TINY_LFU);
+
+        System.out.printf("hit ratio: LRU=%.3f, TINY_LFU=%.3f%n", lru, tinyLfu);
+        assertThat(tinyLfu).isGreaterThan(lru);
+    }
+
+    private double replay(EvictionPolicy policy) {
+        CustomCache<Long, Long> cache = CustomCache.<Long, Long>builder()
+                .maxSize(CACHE_SIZE)
+                .evictionPolicy(policy)
+                .build();
+        LongSupplier trace = scanHeavyTrace(new Random(42));
+        int hits = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            long key = trace.getAsLong();
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.put(key, key);
+            }
+        }
+        cache.shutdown();
+        return (double) hits / REQUESTS;
+    }
+
+    private LongSupplier scanHeavyTrace(Random random) {
+        double[] cumulative = zipf(CATALOG_SIZE, 0.9);
+        long[] scanPosition = {0};
+        return () -> {
+            // Каждый третий запрос — часть последовательного обхода каталога
+            if (random.nextInt(3) == 0) {
+                scanPosition[0] = (scanPosition[0] + 1) % CATALOG_SIZE;
+                return CATALOG_SIZE + scanPosition[0];
+            }
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return index >= 0 ? index : -index - 1;
+        };
+    }
+
+    private static double[] zipf(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.delivery.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Пропускная способность put и размер очереди планировщика после итерации.
+ * До перехода на временные метки очередь росла на одну задачу за каждый put.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CustomCachePutBenchmark {
+
+    private CustomCache<Long, String> cache;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        cache = new CustomCache<>(60000, 1000);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        System.out.printf("%n  pending scheduler tasks: %d%n", CustomCache.pendingMaintenanceTasks());
+        cache.shutdown();
+    }
+
+    @Benchmark
+    public void put() {
+        long key = ThreadLocalRandom.current().nextLong(10_000);
+        cache.put(key, "Food");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomCachePutBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,531 @@
+package com.example.delivery.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CustomCacheTest {
+
+    private final AtomicLong time = new AtomicLong();
+
+    private CustomCache<Long, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = CustomCache.<Long, String>builder()
+                .maxAgeInMillis(1000)
+                .maxSize(3)
+                .recordLoadCounts()
+                .ticker(time::get)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    private void advance(long millis) {
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void get_shouldReturnValueBeforeExpiry() {
+        cache.put(1L, "Pizza");
+        advance(999);
+
+        assertThat(cache.get(1L)).isEqualTo("Pizza");
+    }
+
+    @Test
+    void get_shouldDropExpiredEntry() {
+        cache.put(1L, "Pizza");
+        advance(1000);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void put_shouldResetTtlOnRePut() {
+        cache.put(1L, "Pizza");
+        advance(800);
+        cache.put(1L, "Pizza v2");
+        advance(800);
+
+        assertThat(cache.get(1L)).isEqualTo("Pizza v2");
+    }
+
+    @Test
+    void evictExpired_shouldRemoveOnlyExpiredEntries() {
+        cache.put(1L, "Pizza");
+        advance(600);
+        cache.put(2L, "Burger");
+        advance(600);
+
+        cache.evictExpired();
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(2L)).isEqualTo("Burger");
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedOverMaxSize() {
+        cache.put(1L, "Pizza");
+        cache.put(2L, "Burger");
+        cache.put(3L, "Soup");
+        cache.get(1L);
+        cache.put(4L, "Salad");
+
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(1L)).isEqualTo("Pizza");
+        assertThat(cache.size()).isEqualTo(3);
+    }
+
+    @Test
+    void evictExpired_shouldDrainMoreThanOneBatch() {
+        CustomCache<Long, String> large = CustomCache.<Long, String>builder()
+                .maxAgeInMillis(1000)
+                .maxSize(1000)
+                .ticker(time::get)
+                .build();
+        for (long key = 0; key < CustomCache.EXPIRE_BATCH * 5; key++) {
+            large.put(key, "Food " + key);
+        }
+        advance(1000);
+
+        large.evictExpired();
+
+        assertThat(large.size()).isZero();
+        large.shutdown();
+    }
+
+    @Test
+    void put_shouldExpireEntriesFromTheHeadOfWriteOrder() {
+        cache.put(1L, "Pizza");
+        cache.put(2L, "Burger");
+        advance(1000);
+
+        // Никто не читает 1 и 2, но запись снимает просроченные с головы очереди без sweeper
+        cache.put(3L, "Soup");
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.stats().expirationCount()).isEqualTo(2);
+    }
+
+    @Test
+    void put_shouldNotGrowSchedulerQueue() {
+        int before = CustomCache.pendingMaintenanceTasks();
+
+        for (long i = 0; i < 100_000; i++) {
+            cache.put(i % 10, "Food " + i);
+        }
+
+        assertThat(CustomCache.pendingMaintenanceTasks()).isEqualTo(before);
+    }
+
+    @Test
+    void shutdown_shouldCancelItsCleanupTask() {
+        int before = CustomCache.pendingMaintenanceTasks();
+        CustomCache<Long, String> negative = CustomCache.<Long, String>builder()
+                .negativeMaxAgeInMillis(500)
+                .build();
+
+        // Сам кэш и вложенный absentKeys — две задачи на общем потоке, а не два своих потока
+        assertThat(CustomCache.pendingMaintenanceTasks()).isEqualTo(before + 2);
+        negative.shutdown();
+        assertThat(CustomCache.pendingMaintenanceTasks()).isEqualTo(before);
+    }
+
+    @Test
+    void concurrentAccess_shouldStayBounded() throws InterruptedException {
+        CustomCache<Long, String> shared = new CustomCache<>(60000, 100);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    long key = ThreadLocalRandom.current().nextLong(1000);
+                    if (shared.get(key) == null) {
+                        shared.put(key, "Food " + key);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(shared.size()).isLessThanOrEqualTo(100);
+        shared.shutdown();
+    }
+
+    @Test
+    void clear_shouldRemoveAllEntries() {
+        cache.put(1L, "Pizza");
+        cache.put(2L, "Burger");
+
+        cache.clear();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void tinyLfu_shouldKeepFrequentEntryOverOneHitWonders() {
+        CustomCache<Long, String> lfu = CustomCache.<Long, String>builder()
+                .maxSize(10)
+                .evictionPolicy(EvictionPolicy.TINY_LFU)
+                .build();
+        lfu.put(1L, "Pizza");
+        for (int i = 0; i < 20; i++) {
+            lfu.get(1L);
+        }
+
+        for (long key = 100; key < 200; key++) {
+            lfu.put(key, "Scan " + key);
+        }
+
+        assertThat(lfu.get(1L)).isEqualTo("Pizza");
+        assertThat(lfu.size()).isLessThanOrEqualTo(10);
+        lfu.shutdown();
+    }
+
+    @Test
+    void getWithLoader_shouldCoalesceConcurrentMisses() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<String>> results = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            results.add(pool.submit(() -> cache.get(7L, key -> {
+                loads.incrementAndGet();
+                awaitQuietly(release);
+                return "Pizza";
+            })));
+        }
+
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Pizza");
+        }
+        pool.shutdown();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.loadCount(7L)).isEqualTo(1);
+    }
+
+    @Test
+    void getWithLoader_shouldNotCacheNullAndPropagateFailures() {
+        assertThat(cache.get(1L, key -> null)).isNull();
+        assertThat(cache.size()).isZero();
+
+        assertThatThrownBy(() -> cache.get(2L, key -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(cache.get(2L, key -> "Burger")).isEqualTo("Burger");
+        assertThat(cache.loadCounts()).containsEntry(2L, 1L);
+    }
+
+    @Test
+    void loadCounts_shouldBeDroppedWithTheirEntries() {
+        cache.get(1L, key -> "Pizza");
+        cache.get(2L, key -> "Burger");
+        cache.get(3L, key -> null);
+
+        cache.remove(1L);
+        advance(1000);
+        cache.get(2L);
+
+        assertThat(cache.loadCounts()).isEmpty();
+    }
+
+    @Test
+    void loadCounts_shouldBeEmptyUnlessEnabled() {
+        CustomCache<Long, String> plain = CustomCache.<Long, String>builder()
+                .maxSize(3)
+                .build();
+
+        plain.get(1L, key -> "Pizza");
+
+        assertThat(plain.loadCount(1L)).isZero();
+        assertThat(plain.loadCounts()).isEmpty();
+        plain.shutdown();
+    }
+
+    // Загрузка в отдельном потоке, которая держит loader открытым, пока тест не отпустит release
+    private Future<String> loadInBackground(CustomCache<Long, String> target, ExecutorService pool,
+                                            CountDownLatch release, String value) throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        Future<String> result = pool.submit(() -> target.get(7L, key -> {
+            loading.countDown();
+            awaitQuietly(release);
+            return value;
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        return result;
+    }
+
+    @Test
+    void getWithLoader_removeDuringLoad_shouldNotCacheStaleValue() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> result = loadInBackground(cache, pool, release, "Old pizza");
+
+        cache.remove(7L);
+        release.countDown();
+
+        // Тот, кто ждал загрузку, получает прочитанное, но в кэш оно не попадает
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Old pizza");
+        assertThat(cache.get(7L)).isNull();
+        assertThat(cache.get(7L, key -> "New pizza")).isEqualTo("New pizza");
+        pool.shutdown();
+    }
+
+    @Test
+    void getWithLoader_putOrClearDuringLoad_shouldKeepTheWrite() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> result = loadInBackground(cache, pool, release, "Old pizza");
+
+        cache.put(7L, "New pizza");
+        release.countDown();
+        result.get(5, TimeUnit.SECONDS);
+        assertThat(cache.get(7L)).isEqualTo("New pizza");
+
+        CountDownLatch releaseAgain = new CountDownLatch(1);
+        cache.remove(7L);
+        result = loadInBackground(cache, pool, releaseAgain, "Old pizza");
+        cache.clear();
+        releaseAgain.countDown();
+        result.get(5, TimeUnit.SECONDS);
+        assertThat(cache.get(7L)).isNull();
+        pool.shutdown();
+    }
+
+    @Test
+    void getWithLoader_putDuringMissLoad_shouldNotRememberKeyAsAbsent() throws Exception {
+        CustomCache<Long, String> negative = CustomCache.<Long, String>builder()
+                .negativeMaxAgeInMillis(5000)
+                .ticker(time::get)
+                .build();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> result = loadInBackground(negative, pool, release, null);
+
+        negative.put(7L, "Pizza");
+        negative.remove(7L);
+        release.countDown();
+        result.get(5, TimeUnit.SECONDS);
+
+        assertThat(negative.get(7L, key -> "Pizza")).isEqualTo("Pizza");
+        pool.shutdown();
+        negative.shutdown();
+    }
+
+    @Test
+    void getAll_shouldLoadMissesInOneCallAndRememberAbsentKeys() {
+        CustomCache<Long, String> negative = CustomCache.<Long, String>builder()
+                .negativeMaxAgeInMillis(5000)
+                .ticker(time::get)
+                .build();
+        negative.put(1L, "Pizza");
+        List<List<Long>> calls = new ArrayList<>();
+
+        Map<Long, String> result = negative.getAll(List.of(1L, 2L, 3L, 2L), keys -> {
+            calls.add(keys);
+            return Map.of(2L, "Burger");
+        });
+
+        assertThat(result).containsExactlyInAnyOrderEntriesOf(Map.of(1L, "Pizza", 2L, "Burger"));
+        assertThat(calls).containsExactly(List.of(2L, 3L));
+        assertThat(negative.getAll(List.of(2L, 3L), keys -> {
+            throw new AssertionError("should not load " + keys);
+        })).containsOnlyKeys(2L);
+        negative.shutdown();
+    }
+
+    @Test
+    void getAll_removeDuringLoad_shouldNotCacheStaleValue() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Map<Long, String>> result = pool.submit(() -> cache.getAll(List.of(7L, 8L), keys -> {
+            loading.countDown();
+            awaitQuietly(release);
+            return Map.of(7L, "Old pizza", 8L, "Burger");
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        cache.remove(7L);
+        release.countDown();
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).containsOnlyKeys(7L, 8L);
+        assertThat(cache.get(7L)).isNull();
+        assertThat(cache.get(8L)).isEqualTo("Burger");
+        pool.shutdown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void stats_shouldCountHitsMissesAndRemovalCauses() {
+        cache.get(1L);
+        cache.put(1L, "Pizza");
+        cache.get(1L);
+        cache.get(1L, key -> "unused");
+        cache.put(2L, "Burger");
+        cache.put(3L, "Soup");
+        cache.put(4L, "Salad");
+        cache.remove(4L);
+        advance(1000);
+        cache.evictExpired();
+
+        CacheStats stats = cache.stats();
+
+        assertThat(stats.hitCount()).isEqualTo(2);
+        assertThat(stats.missCount()).isEqualTo(1);
+        assertThat(stats.sizeEvictionCount()).isEqualTo(1);
+        assertThat(stats.explicitRemovalCount()).isEqualTo(1);
+        assertThat(stats.expirationCount()).isEqualTo(2);
+        assertThat(stats.size()).isZero();
+    }
+
+    @Test
+    void getWithLoader_shouldServeStaleValueAndRefreshOnce() {
+        List<Runnable> refreshes = new ArrayList<>();
+        CustomCache<Long, String> refreshing = CustomCache.<Long, String>builder()
+                .maxAgeInMillis(1000)
+                .refreshAfterWriteMillis(500)
+                .refreshExecutor(refreshes::add)
+                .ticker(time::get)
+                .build();
+        refreshing.put(1L, "Pizza");
+        advance(600);
+
+        assertThat(refreshing.get(1L, key -> "Pizza v2")).isEqualTo("Pizza");
+        assertThat(refreshing.get(1L, key -> "Pizza v3")).isEqualTo("Pizza");
+        assertThat(refreshes).hasSize(1);
+
+        refreshes.get(0).run();
+        advance(600);
+
+        assertThat(refreshing.get(1L)).isEqualTo("Pizza v2");
+        refreshing.shutdown();
+    }
+
+    @Test
+    void getWithLoader_shouldDropEntryWhenRefreshFindsNothing() {
+        CustomCache<Long, String> refreshing = CustomCache.<Long, String>builder()
+                .refreshAfterWriteMillis(500)
+                .refreshExecutor(Runnable::run)
+                .ticker(time::get)
+                .build();
+        refreshing.put(1L, "Pizza");
+        advance(600);
+
+        assertThat(refreshing.get(1L, key -> null)).isEqualTo("Pizza");
+        assertThat(refreshing.get(1L)).isNull();
+        refreshing.shutdown();
+    }
+
+    @Test
+    void hardTtl_shouldStillApplyToEntriesNobodyReads() {
+        CustomCache<Long, String> refreshing = CustomCache.<Long, String>builder()
+                .maxAgeInMillis(1000)
+                .refreshAfterWriteMillis(500)
+                .refreshExecutor(Runnable::run)
+                .recordLoadCounts()
+                .ticker(time::get)
+                .build();
+        refreshing.put(1L, "Pizza");
+        advance(1000);
+
+        assertThat(refreshing.get(1L, key -> "Pizza v2")).isEqualTo("Pizza v2");
+        assertThat(refreshing.loadCount(1L)).isEqualTo(1);
+        refreshing.shutdown();
+    }
+
+    @Test
+    void getWithLoader_shouldRememberAbsentKeysUntilPut() {
+        CustomCache<Long, String> negative = CustomCache.<Long, String>builder()
+                .negativeMaxAgeInMillis(500)
+                .ticker(time::get)
+                .build();
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(negative.get(404L, key -> {
+                loads.incrementAndGet();
+                return null;
+            })).isNull();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(negative.stats().negativeHitCount()).isEqualTo(9);
+
+        negative.put(404L, "Pizza");
+        assertThat(negative.get(404L, key -> null)).isEqualTo("Pizza");
+
+        negative.remove(404L);
+        advance(500);
+        negative.get(404L, key -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        assertThat(loads.get()).isEqualTo(2);
+        negative.shutdown();
+    }
+
+    @Test
+    void maxWeight_shouldEvictUntilWeightFits() {
+        CustomCache<Long, String> weighted = CustomCache.<Long, String>builder()
+                .maxWeight(10)
+                .weigher((key, value) -> value.length())
+                .build();
+
+        weighted.put(1L, "Soup");
+        weighted.put(2L, "Pizza");
+        weighted.put(3L, "Lasagna");
+
+        assertThat(weighted.weightedSize()).isLessThanOrEqualTo(10);
+        assertThat(weighted.get(3L)).isEqualTo("Lasagna");
+        assertThat(weighted.get(1L)).isNull();
+        assertThat(weighted.get(2L)).isNull();
+        assertThat(weighted.stats().maxWeight()).isEqualTo(10);
+        weighted.shutdown();
+    }
+
+    @Test
+    void builder_shouldRequireWeigherWithMaxWeight() {
+        assertThatThrownBy(() -> CustomCache.<Long, String>builder().maxWeight(10).build())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void hottestKeys_shouldListMostRecentlyUsedFirst() {
+        cache.put(1L, "Pizza");
+        cache.put(2L, "Burger");
+        cache.put(3L, "Soup");
+        cache.get(1L);
+
+        assertThat(cache.hottestKeys(2)).containsExactly(1L, 3L);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.delivery.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Сколько запросов после рестарта нужно, чтобы hit rate вышел на установившийся уровень:
+ * с холодным кэшем и с кэшем, прогретым из снимка горячих ключей прошлого процесса.
+ * Каждый промах здесь — это findById в базу, поэтому число запросов до выхода на плато
+ * и число промахов за это время и есть нагрузка на Postgres после деплоя.
+ */
+class CustomCacheWarmStartTest {
+
+    private static final int CACHE_SIZE = 500;
+    private static final int CATALOG_SIZE = 20_000;
+    private static final int WINDOW = 2_000;
+    private static final int MAX_REQUESTS = 400_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void snapshot_shouldReachSteadyHitRateSooner() throws IOException {
+        double[] cumulative = zipf(CATALOG_SIZE, 0.9);
+
+        // «Прошлый процесс»: гоняем трафик до плато и сохраняем горячие ключи
+        CustomCache<Long, Long> previous = newCache();
+        LongSupplier trace = trace(cumulative, new Random(1));
+        for (int i = 0; i < MAX_REQUESTS; i++) {
+            access(previous, trace.getAsLong());
+        }
+        double steadyHitRate = hitRate(previous, trace, 50_000);
+        Path snapshot = tempDir.resolve("cache.snapshot");
+        KeySnapshotFile.write(snapshot, previous.hottestKeys(CACHE_SIZE));
+        previous.shutdown();
+
+        CustomCache<Long, Long> cold = newCache();
+        Result coldStart = untilSteady(cold, trace(cumulative, new Random(2)), steadyHitRate);
+        cold.shutdown();
+
+        CustomCache<Long, Long> warm = newCache();
+        long[] keys = KeySnapshotFile.read(snapshot);
+        for (int i = keys.length - 1; i >= 0; i--) {
+            warm.put(keys[i], keys[i]);
+        }
+        Result warmStart = untilSteady(warm, trace(cumulative, new Random(2)), steadyHitRate);
+        warm.shutdown();
+
+        System.out.printf("steady hit rate %.3f; cold start: %d requests, %d misses; "
+                        + "snapshot (%d keys): %d requests, %d misses%n",
+                steadyHitRate, coldStart.requests, coldStart.misses,
+                keys.length, warmStart.requests, warmStart.misses);
+        assertThat(warmStart.requests).isLessThan(coldStart.requests);
+        assertThat(warmStart.misses).isLessThan(coldStart.misses);
+    }
+
+    private static CustomCache<Long, Long> newCache() {
+        return CustomCache.<Long, Long>builder()
+                .maxSize(CACHE_SIZE)
+                .evictionPolicy(EvictionPolicy.TINY_LFU)
+                .build();
+    }
+
+    private static boolean access(CustomCache<Long, Long> cache, long key) {
+        if (cache.get(key) != null) {
+            return true;
+        }
+        cache.put(key, key);
+        return false;
+    }
+
+    private static double hitRate(CustomCache<Long, Long> cache, LongSupplier trace, int requests) {
+        int hits = 0;
+        for (int i = 0; i < requests; i++) {
+            hits += access(cache, trace.getAsLong()) ? 1 : 0;
+        }
+        return (double) hits / requests;
+    }
+
+    /** Запросы до первого окна, в котором hit rate не ниже 95% установившегося. */
+    private static Result untilSteady(CustomCache<Long, Long> cache, LongSupplier trace, double steadyHitRate) {
+        long misses = 0;
+        for (int requests = WINDOW; requests <= MAX_REQUESTS; requests += WINDOW) {
+            double windowHitRate = hitRate(cache, trace, WINDOW);
+            misses += Math.round((1 - windowHitRate) * WINDOW);
+            if (windowHitRate >= 0.95 * steadyHitRate) {
+                return new Result(requests, misses);
+            }
+        }
+        return new Result(MAX_REQUESTS, misses);
+    }
+
+    private record Result(int requests, long misses) {
+    }
+
+    private static LongSupplier trace(double[] cumulative, Random random) {
+        return () -> {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return index >= 0 ? index : -index - 1;
+        };
+    }
+
+    private static double[] zipf(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.delivery.utils;
+
+import com.example.delivery.exception.EntityNotFoundException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Боты перебирают 500 несуществующих id. Каждый промах мимо кэша стоит имитации запроса
+ * в базу, 404 заканчивается EntityNotFoundException — как в FoodServiceImpl.getFoodById.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NegativeLookupBenchmark {
+
+    @Param({"0", "5000"})
+    public long negativeMaxAgeInMillis;
+
+    private CustomCache<Long, String> cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = CustomCache.<Long, String>builder()
+                .negativeMaxAgeInMillis(negativeMaxAgeInMillis)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    @Benchmark
+    public Object missingId() {
+        long id = 1_000_000 + ThreadLocalRandom.current().nextLong(500);
+        String food = cache.get(id, key -> {
+            Blackhole.consumeCPU(5_000); // поход в базу
+            return null;
+        });
+        if (food == null) {
+            return new EntityNotFoundException("Food", id);
+        }
+        return food;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NegativeLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
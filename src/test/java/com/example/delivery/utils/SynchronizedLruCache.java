@@ -0,0 +1,29 @@
+package com.example.delivery.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Прежняя реализация CustomCache (один монитор на LinkedHashMap) — точка отсчёта для бенчмарков.
+ */
+class SynchronizedLruCache<K, V> {
+
+    private final Map<K, V> cache;
+
+    SynchronizedLruCache(int maxSize) {
+        this.cache = new LinkedHashMap<K, V>(maxSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    synchronized void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    synchronized V get(K key) {
+        return cache.get(key);
+    }
+}